@@ -0,0 +1,24 @@
+dependencies {
+    implementation(project(":core"))
+    implementation("com.google.code.gson:gson:2.13.2")
+    implementation("org.openjdk.jmh:jmh-core:1.37")
+    annotationProcessor("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+}
+
+tasks.withType<AbstractPublishToMaven>().configureEach {
+    enabled = false
+}
+
+tasks.register<JavaExec>("jmh") {
+    group = "faststats"
+    description = "Runs the JMH benchmarks with the gc profiler, usage: -Pincludes=<regex> -Pformat=<text|json|csv>"
+    classpath = project.the<SourceSetContainer>()["main"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    args(
+        providers.gradleProperty("includes").getOrElse(".*"),
+        "-prof", "gc",
+        "-rf", providers.gradleProperty("format").getOrElse("text"),
+        "-rff", layout.buildDirectory.file("reports/jmh/results." + providers.gradleProperty("format").getOrElse("text")).get().asFile.path
+    )
+    doFirst { layout.buildDirectory.dir("reports/jmh").get().asFile.mkdirs() }
+}
@@ -0,0 +1,69 @@
+package dev.faststats.core;
+
+import com.google.gson.stream.JsonWriter;
+import dev.faststats.core.chart.Chart;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the evaluation of charts, writing their data to a discarding writer.
+ * <p>
+ * Windowed charts are refilled within every invocation,
+ * subtract the {@link #fill() fill} baseline from the {@link #evaluate() evaluation} to get the cost of the charts alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChartBenchmark {
+    @Param({"1", "10", "100", "1000"})
+    public int charts;
+
+    @Param
+    public ChartType type;
+
+    private List<Chart<?>> created;
+    private BenchmarkMetrics metrics;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        created = type.create(charts);
+        metrics = new BenchmarkMetrics(Set.copyOf(created), URI.create("http://127.0.0.1:0")).register();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        metrics.shutdown().join();
+    }
+
+    @Benchmark
+    public void fill() {
+        type.fill(created);
+    }
+
+    @Benchmark
+    public void evaluate() throws IOException {
+        type.fill(created);
+        metrics.writeData(new JsonWriter(Writer.nullWriter()));
+    }
+}
@@ -0,0 +1,119 @@
+package dev.faststats.core;
+
+import dev.faststats.core.chart.CardinalityChart;
+import dev.faststats.core.chart.CategoricalChart;
+import dev.faststats.core.chart.Chart;
+import dev.faststats.core.chart.CounterChart;
+import dev.faststats.core.chart.GaugeChart;
+import dev.faststats.core.chart.HistogramChart;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * The chart types covered by the benchmarks.
+ * <p>
+ * Windowed charts reset their data when computed,
+ * so benchmarks must {@link #fill(Collection) refill} them within every invocation,
+ * otherwise only the first invocation measures a chart with data.
+ * A per-invocation setup would distort the timings of these short invocations,
+ * so benchmarks measure the refill on its own as baseline instead.
+ */
+public enum ChartType {
+    NUMBER(id -> Chart.number(id, () -> 42)),
+    STRING(id -> Chart.string(id, () -> "value")),
+    BOOL(id -> Chart.bool(id, () -> true)),
+    LONG_VALUE(id -> Chart.longValue(id, () -> 42)),
+    DOUBLE_VALUE(id -> Chart.doubleValue(id, () -> 19.5)),
+    CACHED(id -> Chart.cached(Chart.number(id, () -> 42), Duration.ofHours(1))),
+    COUNTER(Chart::counter, chart -> ((CounterChart) chart).add(1000)),
+    HISTOGRAM(Chart::histogram, chart -> {
+        var histogram = (HistogramChart) chart;
+        for (var i = 0; i < 100; i++) histogram.record(i * 370L);
+    }),
+    GAUGE(id -> Chart.gauge(id, () -> 42, Duration.ofSeconds(10)), chart -> {
+        var gauge = (GaugeChart) chart;
+        for (var i = 0; i < 30; i++) gauge.sample();
+    }),
+    CATEGORICAL(id -> Chart.categorical(id, 10), chart -> {
+        var categorical = (CategoricalChart) chart;
+        for (var i = 0; i < 100; i++) categorical.record("category_" + i % 50);
+    }),
+    CARDINALITY(id -> Chart.cardinality(id, false), chart -> {
+        var cardinality = (CardinalityChart) chart;
+        for (var i = 0; i < 100; i++) cardinality.record(i);
+    });
+
+    private final Function<String, Chart<?>> factory;
+    private final Consumer<Chart<?>> filler;
+
+    ChartType(Function<String, Chart<?>> factory) {
+        this(factory, chart -> {
+        });
+    }
+
+    ChartType(Function<String, Chart<?>> factory, Consumer<Chart<?>> filler) {
+        this.factory = factory;
+        this.filler = filler;
+    }
+
+    /**
+     * Creates the given number of charts of this type, filled with data.
+     * <p>
+     * Chart ids only allow lowercase letters and underscores, so the index is spelled out in letters.
+     *
+     * @param count the number of charts
+     * @return the charts
+     */
+    List<Chart<?>> create(int count) {
+        var charts = new ArrayList<Chart<?>>(count);
+        for (var i = 0; i < count; i++) charts.add(factory.apply(name().toLowerCase() + "_" + id(i)));
+        charts.forEach(filler);
+        return charts;
+    }
+
+    /**
+     * Records data into the given charts of this type again.
+     *
+     * @param charts the charts created by {@link #create(int)}
+     */
+    void fill(Collection<Chart<?>> charts) {
+        charts.forEach(filler);
+    }
+
+    /**
+     * Creates the given number of charts of every type, filled with data.
+     *
+     * @param count the number of charts per type
+     * @return the charts by type
+     */
+    static Map<ChartType, List<Chart<?>>> createAll(int count) {
+        var charts = new EnumMap<ChartType, List<Chart<?>>>(ChartType.class);
+        for (var type : values()) charts.put(type, type.create(count));
+        return charts;
+    }
+
+    /**
+     * Records data into the given charts again.
+     *
+     * @param charts the charts created by {@link #createAll(int)}
+     */
+    static void fillAll(Map<ChartType, List<Chart<?>>> charts) {
+        charts.forEach(ChartType::fill);
+    }
+
+    private static String id(int index) {
+        var id = new StringBuilder();
+        do {
+            id.append((char) ('a' + index % 26));
+            index /= 26;
+        } while (index > 0);
+        return id.toString();
+    }
+}
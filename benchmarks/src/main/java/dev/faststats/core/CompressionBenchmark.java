@@ -0,0 +1,83 @@
+package dev.faststats.core;
+
+import com.github.luben.zstd.Zstd;
+import dev.faststats.core.chart.Chart;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures compressing a typical payload at different zstd levels,
+ * and with the pooled compressor used for submissions.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+    @Benchmark
+    public byte[] compress(Levels levels, Payload payload) {
+        return Zstd.compress(payload.bytes, levels.level);
+    }
+
+    /**
+     * The pooled compressor always uses {@link PayloadCompressor#COMPRESSION_LEVEL}.
+     */
+    @Benchmark
+    public int pooled(Pooled pooled, Payload payload) {
+        pooled.compressor.begin(null);
+        pooled.compressor.write(payload.bytes, 0, payload.bytes.length);
+        return pooled.compressor.finish();
+    }
+
+    @State(Scope.Benchmark)
+    public static class Payload {
+        private byte[] bytes;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            var charts = new HashSet<Chart<?>>();
+            ChartType.createAll(10).values().forEach(charts::addAll);
+            var metrics = new BenchmarkMetrics(charts, URI.create("http://127.0.0.1:0"));
+            bytes = metrics.createData().toString().getBytes(StandardCharsets.UTF_8);
+            metrics.shutdown().join();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Levels {
+        @Param({"1", "3", "6", "9", "19"})
+        public int level;
+    }
+
+    @State(Scope.Thread)
+    public static class Pooled {
+        private PayloadCompressor compressor;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            compressor = new PayloadCompressor();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            compressor.free();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package dev.faststats.core;
+
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+import dev.faststats.core.chart.Chart;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URI;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building the payload as a JSON tree and converting it to a string
+ * with streaming the payload, as JSON text and in the binary format.
+ * <p>
+ * All variants collect the charts the same way, in parallel on the chart executor.
+ * Windowed charts are refilled within every invocation,
+ * subtract the {@link #fill() fill} baseline from the other results to get the cost of the serialization alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+    @Param({"10", "100"})
+    public int chartsPerType;
+
+    private Map<ChartType, List<Chart<?>>> charts;
+    private BenchmarkMetrics metrics;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        charts = ChartType.createAll(chartsPerType);
+        var all = new HashSet<Chart<?>>();
+        charts.values().forEach(all::addAll);
+        metrics = new BenchmarkMetrics(all, URI.create("http://127.0.0.1:0")).register();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        metrics.shutdown().join();
+    }
+
+    @Benchmark
+    public void fill() {
+        ChartType.fillAll(charts);
+    }
+
+    /**
+     * Every chart is converted to a {@link com.google.gson.JsonElement},
+     * collected into a {@link JsonObject} tree and then converted to a string.
+     */
+    @Benchmark
+    public String tree() throws IOException {
+        ChartType.fillAll(charts);
+        var data = new JsonObject();
+        metrics.createServerData().asMap().forEach(data::add);
+        metrics.createChartData().asMap().forEach(data::add);
+        metrics.createDefaultData().asMap().forEach(data::add);
+
+        var payload = new JsonObject();
+        payload.addProperty("server_id", metrics.getConfig().serverId().toString());
+        payload.add("data", data);
+        return payload.toString();
+    }
+
+    @Benchmark
+    public String streaming() throws IOException {
+        ChartType.fillAll(charts);
+        var writer = new StringWriter();
+        metrics.writeData(new JsonWriter(writer));
+        return writer.toString();
+    }
+
+    @Benchmark
+    public byte[] binary() throws IOException {
+        ChartType.fillAll(charts);
+        var output = new ByteArrayOutputStream();
+        var writer = PayloadEncoder.BINARY.createWriter(output);
+        metrics.writeData(writer);
+        writer.flush();
+        return output.toByteArray();
+    }
+}
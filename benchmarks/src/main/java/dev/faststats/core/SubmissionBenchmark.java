@@ -0,0 +1,83 @@
+package dev.faststats.core;
+
+import com.sun.net.httpserver.HttpServer;
+import dev.faststats.core.chart.Chart;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a complete submission, from collecting the charts to the response of an in-process stub server.
+ * <p>
+ * The instance is registered with the submission hub, so submissions use the pooled compressors like in production.
+ * Windowed charts are refilled within every invocation,
+ * subtract the {@link #fill() fill} baseline from the {@link #submit() submission} to get the cost of the submission alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SubmissionBenchmark {
+    @Param({"10", "100"})
+    public int chartsPerType;
+
+    private Map<ChartType, List<Chart<?>>> charts;
+    private HttpServer server;
+    private BenchmarkMetrics metrics;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            try (exchange) {
+                exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+                exchange.sendResponseHeaders(200, -1);
+            }
+        });
+        server.start();
+
+        charts = ChartType.createAll(chartsPerType);
+        var all = new HashSet<Chart<?>>();
+        charts.values().forEach(all::addAll);
+        var url = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/v1/collect");
+        metrics = new BenchmarkMetrics(all, url).register();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        metrics.shutdown().join();
+        server.stop(0);
+    }
+
+    @Benchmark
+    public void fill() {
+        ChartType.fillAll(charts);
+    }
+
+    @Benchmark
+    public void submit() {
+        ChartType.fillAll(charts);
+        metrics.submitData().join();
+    }
+}
@@ -11,16 +11,22 @@ import org.jspecify.annotations.Nullable;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 final class BukkitMetricsImpl extends SimpleMetrics implements BukkitMetrics {
+    private static final long SNAPSHOT_INTERVAL_TICKS = 5 * 60 * 20;
+
     private final Logger logger;
     private final Server server;
     private final Plugin plugin;
 
+    private @Nullable Runnable cancelSnapshots = null;
+    private volatile @Nullable ServerSnapshot snapshot = null;
+
     private BukkitMetricsImpl(SimpleMetrics.Factory<?> factory, Plugin plugin, Path config) throws IOException, IllegalStateException {
         super(factory, config);
 
@@ -31,9 +37,45 @@ final class BukkitMetricsImpl extends SimpleMetrics implements BukkitMetrics {
         startSubmitting();
     }
 
+    /**
+     * Captures a snapshot of the server state at a low frequency,
+     * using the global region scheduler where available to support Folia.
+     * <p>
+     * Snapshots are only captured while metrics are submitted.
+     * Tasks can not be scheduled before the plugin is enabled, for example if metrics are created in {@code onLoad},
+     * the snapshots then start with the first submission after the plugin was enabled,
+     * capturing the first snapshot on the next tick.
+     */
+    private synchronized void startSnapshots() {
+        if (cancelSnapshots != null || !isSubmitting()) return;
+        if (server.isPrimaryThread()) captureSnapshot();
+        if (!plugin.isEnabled()) return;
+        try {
+            var task = server.getGlobalRegionScheduler().runAtFixedRate(plugin,
+                    ignored -> captureSnapshot(), 1, SNAPSHOT_INTERVAL_TICKS);
+            cancelSnapshots = task::cancel;
+        } catch (NoSuchMethodError e) {
+            var task = server.getScheduler().runTaskTimer(plugin,
+                    this::captureSnapshot, 1, SNAPSHOT_INTERVAL_TICKS);
+            cancelSnapshots = task::cancel;
+        }
+    }
+
+    private synchronized void stopSnapshots() {
+        if (cancelSnapshots != null) cancelSnapshots.run();
+        cancelSnapshots = null;
+    }
+
+    private void captureSnapshot() {
+        var minecraftVersion = tryOrEmpty(server::getMinecraftVersion)
+                .orElse("unknown"); // fixme: bukkit compat
+        snapshot = new ServerSnapshot(checkOnlineMode(), server.getName(), minecraftVersion, server.getOnlinePlayers().size());
+    }
+
     @Async.Schedule
     private void startSubmitting() {
-        startSubmitting(0, 30, TimeUnit.MINUTES);
+        startSubmitting(30, TimeUnit.MINUTES);
+        startSnapshots();
     }
 
     private boolean checkOnlineMode() {
@@ -55,20 +97,35 @@ final class BukkitMetricsImpl extends SimpleMetrics implements BukkitMetrics {
         return settings.getBoolean("bungeecord") && proxies.getBoolean("bungee-cord.online-mode");
     }
 
+    @Override
+    protected void appendServerData(JsonObject charts) {
+        startSnapshots();
+        var snapshot = this.snapshot;
+        if (snapshot == null) {
+            info("No server snapshot captured yet, skipping server data");
+            return;
+        }
+
+        charts.addProperty("online_mode", snapshot.onlineMode());
+        charts.addProperty("server_type", snapshot.serverType());
+        charts.addProperty("minecraft_version", snapshot.minecraftVersion());
+        if (snapshot.playerCount() != 0) charts.addProperty("player_count", snapshot.playerCount());
+    }
+
     @Override
     @SuppressWarnings("deprecation")
     protected void appendDefaultData(JsonObject charts) {
         var pluginVersion = tryOrEmpty(() -> plugin.getPluginMeta().getVersion())
                 .orElseGet(() -> plugin.getDescription().getVersion());
-        var minecraftVersion = tryOrEmpty(server::getMinecraftVersion)
-                .orElse("unknown"); // fixme: bukkit compat
-        var players = server.getOnlinePlayers().size();
 
-        charts.addProperty("online_mode", checkOnlineMode());
         charts.addProperty("plugin_version", pluginVersion);
-        charts.addProperty("server_type", server.getName());
-        charts.addProperty("minecraft_version", minecraftVersion);
-        if (players != 0) charts.addProperty("player_count", players);
+    }
+
+    @Override
+    public CompletableFuture<Void> shutdown() {
+        var shutdown = super.shutdown();
+        stopSnapshots();
+        return shutdown;
     }
 
     @Override
@@ -0,0 +1,15 @@
+package dev.faststats.bukkit;
+
+/**
+ * An immutable copy of the server state reported with every submission.
+ * <p>
+ * Snapshots are captured on the main thread, or the global region thread on Folia,
+ * so submissions never read live server structures from the metrics thread.
+ *
+ * @param onlineMode       whether the server or its proxy is in online mode
+ * @param serverType       the server software name
+ * @param minecraftVersion the minecraft version
+ * @param playerCount      the number of online players
+ */
+record ServerSnapshot(boolean onlineMode, String serverType, String minecraftVersion, int playerCount) {
+}
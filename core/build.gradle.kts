@@ -11,3 +11,22 @@ dependencies {
     testImplementation("org.junit.jupiter:junit-jupiter")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
+
+plugins.withId("java") {
+    val sourceSets = the<SourceSetContainer>()
+    val tools = sourceSets.create("tools") {
+        compileClasspath += sourceSets["main"].output + configurations["compileClasspath"]
+        runtimeClasspath += sourceSets["main"].output + configurations["runtimeClasspath"]
+    }
+
+    tasks.register<JavaExec>("trainDictionary") {
+        group = "faststats"
+        description = "Trains a zstd dictionary from sample payloads, usage: -Psamples=<directory> -Poutput=<file>"
+        classpath = tools.runtimeClasspath
+        mainClass.set("dev.faststats.core.DictionaryTrainer")
+        args(
+            providers.gradleProperty("samples").getOrElse("samples"),
+            providers.gradleProperty("output").getOrElse("build/dictionary.zstd")
+        )
+    }
+}
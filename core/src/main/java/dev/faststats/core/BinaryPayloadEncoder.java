@@ -0,0 +1,21 @@
+package dev.faststats.core;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encodes payloads in the compact binary format of {@link BinaryPayloadWriter}.
+ */
+final class BinaryPayloadEncoder implements PayloadEncoder {
+    @Override
+    public String contentType() {
+        return "application/vnd.faststats.binary";
+    }
+
+    @Override
+    public JsonWriter createWriter(OutputStream output) throws IOException {
+        return new BinaryPayloadWriter(output);
+    }
+}
@@ -0,0 +1,110 @@
+package dev.faststats.core;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads payloads written by {@link BinaryPayloadWriter} back into a {@link JsonWriter}.
+ * <p>
+ * This is used to transcode binary payloads to JSON
+ * once the metrics server rejected the binary format.
+ */
+final class BinaryPayloadReader {
+    private final List<String> strings = new ArrayList<>();
+    private final InputStream input;
+
+    private BinaryPayloadReader(InputStream input) {
+        this.input = input;
+    }
+
+    /**
+     * Transcodes a binary payload to the given writer.
+     *
+     * @param input  the binary payload
+     * @param writer the writer to write to
+     * @throws IOException if the payload is malformed or an I/O error occurs
+     */
+    static void transcode(InputStream input, JsonWriter writer) throws IOException {
+        var magic = input.readNBytes(BinaryPayloadWriter.MAGIC.length);
+        if (!Arrays.equals(magic, BinaryPayloadWriter.MAGIC)) throw new IOException("Not a binary payload");
+        var version = input.read();
+        if (version != BinaryPayloadWriter.VERSION) throw new IOException("Unsupported binary payload version: " + version);
+        var reader = new BinaryPayloadReader(input);
+        reader.readValue(writer, reader.read());
+        writer.flush();
+    }
+
+    private void readValue(JsonWriter writer, int tag) throws IOException {
+        switch (tag) {
+            case BinaryPayloadWriter.NULL -> writer.nullValue();
+            case BinaryPayloadWriter.FALSE -> writer.value(false);
+            case BinaryPayloadWriter.TRUE -> writer.value(true);
+            case BinaryPayloadWriter.INTEGER -> {
+                var zigzag = readVarint(read());
+                writer.value((zigzag >>> 1) ^ -(zigzag & 1));
+            }
+            case BinaryPayloadWriter.DECIMAL -> {
+                long bits = 0;
+                for (var i = 0; i < Long.BYTES; i++) bits = bits << 8 | read();
+                writer.value(Double.longBitsToDouble(bits));
+            }
+            case BinaryPayloadWriter.STRING -> writer.value(readString(readVarint(read())));
+            case BinaryPayloadWriter.BEGIN_OBJECT -> {
+                writer.beginObject();
+                long key;
+                while ((key = readVarint(read())) != 0) {
+                    writer.name(readString(key - 1));
+                    readValue(writer, read());
+                }
+                writer.endObject();
+            }
+            case BinaryPayloadWriter.BEGIN_ARRAY -> {
+                writer.beginArray();
+                int next;
+                while ((next = read()) != BinaryPayloadWriter.END_ARRAY) readValue(writer, next);
+                writer.endArray();
+            }
+            default -> throw new IOException("Unknown tag: " + tag);
+        }
+    }
+
+    private String readString(long reference) throws IOException {
+        if (reference != 0) {
+            if (reference > strings.size()) throw new IOException("Unknown string reference: " + reference);
+            return strings.get((int) reference - 1);
+        }
+        var length = readVarint(read());
+        if (length > Integer.MAX_VALUE) throw new IOException("String too long: " + length);
+        var bytes = input.readNBytes((int) length);
+        if (bytes.length != length) throw new EOFException();
+        var string = new String(bytes, StandardCharsets.UTF_8);
+        strings.add(string);
+        return string;
+    }
+
+    private long readVarint(int first) throws IOException {
+        long value = first & 0x7F;
+        var shift = 7;
+        var current = first;
+        while ((current & 0x80) != 0) {
+            if (shift >= Long.SIZE) throw new IOException("Varint too long");
+            current = read();
+            value |= (long) (current & 0x7F) << shift;
+            shift += 7;
+        }
+        return value;
+    }
+
+    private int read() throws IOException {
+        var value = input.read();
+        if (value == -1) throw new EOFException();
+        return value;
+    }
+}
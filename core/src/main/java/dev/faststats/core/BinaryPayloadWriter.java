@@ -0,0 +1,216 @@
+package dev.faststats.core;
+
+import com.google.gson.stream.JsonWriter;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link JsonWriter} writing a compact binary representation instead of JSON text.
+ * <p>
+ * A payload starts with the magic bytes {@code FSB} followed by the format version,
+ * then contains a single value. Every value starts with a one byte tag:
+ * <pre>
+ * 0  null
+ * 1  false
+ * 2  true
+ * 3  integer      zigzag varint
+ * 4  decimal      8 byte IEEE 754 double, big endian
+ * 5  string       string reference
+ * 6  object       (key reference, value)* followed by varint 0
+ * 7  array        value* followed by tag 8
+ * </pre>
+ * Strings, including object keys, are written through a string table built while writing:
+ * a string reference is a varint, where {@code 0} introduces a new string as varint byte length and UTF-8 bytes,
+ * which is then assigned the next index, and any other value {@code n} refers to the string with index {@code n - 1}.
+ * A key reference is a string reference plus one, so {@code 0} can end the object.
+ * Varints use unsigned LEB128.
+ * <p>
+ * Like {@link JsonWriter}, object members with a null value are omitted unless
+ * {@link #setSerializeNulls(boolean) serializing nulls} is enabled.
+ */
+final class BinaryPayloadWriter extends JsonWriter {
+    static final byte[] MAGIC = {'F', 'S', 'B'};
+    static final int VERSION = 1;
+
+    static final int NULL = 0;
+    static final int FALSE = 1;
+    static final int TRUE = 2;
+    static final int INTEGER = 3;
+    static final int DECIMAL = 4;
+    static final int STRING = 5;
+    static final int BEGIN_OBJECT = 6;
+    static final int BEGIN_ARRAY = 7;
+    static final int END_ARRAY = 8;
+
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final OutputStream output;
+    private @Nullable String deferredName = null;
+
+    BinaryPayloadWriter(OutputStream output) throws IOException {
+        super(Writer.nullWriter());
+        this.output = output;
+        output.write(MAGIC);
+        output.write(VERSION);
+    }
+
+    @Override
+    public JsonWriter beginObject() throws IOException {
+        writeDeferredName();
+        output.write(BEGIN_OBJECT);
+        return this;
+    }
+
+    @Override
+    public JsonWriter endObject() throws IOException {
+        output.write(0);
+        return this;
+    }
+
+    @Override
+    public JsonWriter beginArray() throws IOException {
+        writeDeferredName();
+        output.write(BEGIN_ARRAY);
+        return this;
+    }
+
+    @Override
+    public JsonWriter endArray() throws IOException {
+        output.write(END_ARRAY);
+        return this;
+    }
+
+    @Override
+    public JsonWriter name(String name) {
+        if (deferredName != null) throw new IllegalStateException("Name already written: " + deferredName);
+        deferredName = name;
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(@Nullable String value) throws IOException {
+        if (value == null) return nullValue();
+        writeDeferredName();
+        output.write(STRING);
+        writeString(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter jsonValue(@Nullable String value) {
+        throw new UnsupportedOperationException("Raw JSON values are not supported by the binary format");
+    }
+
+    @Override
+    public JsonWriter nullValue() throws IOException {
+        if (deferredName != null && !getSerializeNulls()) {
+            deferredName = null;
+            return this;
+        }
+        writeDeferredName();
+        output.write(NULL);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(boolean value) throws IOException {
+        writeDeferredName();
+        output.write(value ? TRUE : FALSE);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(@Nullable Boolean value) throws IOException {
+        return value == null ? nullValue() : value(value.booleanValue());
+    }
+
+    @Override
+    public JsonWriter value(float value) throws IOException {
+        return value((double) value);
+    }
+
+    @Override
+    public JsonWriter value(double value) throws IOException {
+        writeDeferredName();
+        output.write(DECIMAL);
+        var bits = Double.doubleToRawLongBits(value);
+        for (var shift = 56; shift >= 0; shift -= 8) output.write((int) (bits >>> shift));
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(long value) throws IOException {
+        writeDeferredName();
+        output.write(INTEGER);
+        writeVarint((value << 1) ^ (value >> 63));
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(@Nullable Number value) throws IOException {
+        if (value == null) return nullValue();
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+            || value instanceof AtomicInteger || value instanceof AtomicLong) {
+            return value(value.longValue());
+        }
+        if (value instanceof Double || value instanceof Float) return value(value.doubleValue());
+        if (value instanceof BigInteger integer && integer.bitLength() < Long.SIZE) return value(integer.longValue());
+
+        // lazily parsed and arbitrary precision numbers
+        var string = value.toString();
+        try {
+            return value(Long.parseLong(string));
+        } catch (NumberFormatException e) {
+            return value(Double.parseDouble(string));
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        output.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.close();
+    }
+
+    private void writeDeferredName() throws IOException {
+        if (deferredName == null) return;
+        writeString(deferredName, 1);
+        deferredName = null;
+    }
+
+    private void writeString(String value) throws IOException {
+        writeString(value, 0);
+    }
+
+    private void writeString(String value, int offset) throws IOException {
+        var index = strings.get(value);
+        if (index != null) {
+            writeVarint(index + 1 + offset);
+            return;
+        }
+        strings.put(value, strings.size());
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(offset);
+        writeVarint(bytes.length);
+        output.write(bytes);
+    }
+
+    private void writeVarint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        output.write((int) value);
+    }
+}
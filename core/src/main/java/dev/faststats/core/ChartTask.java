@@ -0,0 +1,87 @@
+package dev.faststats.core;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A chart computation, remembering when it started running.
+ * <p>
+ * The chart timeout is measured from the start of the computation,
+ * so charts waiting in the queue of a busy pool are not timed out before they ran.
+ * A computation that is abandoned while it still runs lets the {@link SubmissionHub} compensate the pool thread it occupies,
+ * until the chart finally returns.
+ *
+ * @param <T> the result type
+ */
+final class ChartTask<T> extends FutureTask<T> {
+    private final @Nullable SubmissionHub hub;
+    private volatile boolean started = false;
+    private volatile long startedAt = 0;
+    private boolean finished = false;
+    private boolean abandoned = false;
+
+    /**
+     * Creates a chart computation.
+     *
+     * @param callable the computation
+     * @param hub      the hub to compensate stuck pool threads with, or null if the computation does not run on the pool
+     */
+    ChartTask(Callable<T> callable, @Nullable SubmissionHub hub) {
+        super(callable);
+        this.hub = hub;
+    }
+
+    @Override
+    public void run() {
+        startedAt = System.nanoTime();
+        started = true;
+        try {
+            super.run();
+        } finally {
+            synchronized (this) {
+                finished = true;
+                if (abandoned && hub != null) hub.chartReleased();
+            }
+        }
+    }
+
+    /**
+     * Waits for the computation to complete.
+     *
+     * @param timeout  the chart timeout in nanoseconds, counted from the start of the computation
+     * @param deadline the {@link System#nanoTime()} by which all charts must be complete
+     * @return the result
+     * @throws TimeoutException     if the chart timeout or the deadline passed
+     * @throws ExecutionException   if the computation failed
+     * @throws InterruptedException if the current thread was interrupted while waiting
+     */
+    T await(long timeout, long deadline) throws TimeoutException, ExecutionException, InterruptedException {
+        while (true) {
+            var now = System.nanoTime();
+            var chartDeadline = (started ? startedAt : now) + timeout;
+            try {
+                return get(Math.max(0, Math.min(chartDeadline - now, deadline - now)), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                now = System.nanoTime();
+                if (now - deadline >= 0 || started && now - (startedAt + timeout) >= 0) throw e;
+            }
+        }
+    }
+
+    /**
+     * Cancels the computation, compensating its pool thread if the chart does not stop.
+     */
+    void abandon() {
+        cancel(true);
+        synchronized (this) {
+            if (!started || finished || abandoned || hub == null) return;
+            abandoned = true;
+            hub.chartStuck();
+        }
+    }
+}
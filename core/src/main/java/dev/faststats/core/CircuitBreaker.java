@@ -0,0 +1,67 @@
+package dev.faststats.core;
+
+import java.time.Duration;
+
+/**
+ * A circuit breaker stopping submission attempts after repeated failures.
+ * <p>
+ * Once {@code failureThreshold} consecutive attempts failed, the circuit opens and all attempts are rejected.
+ * After {@code openDuration}, a single probe attempt is let through:
+ * if it succeeds the circuit closes again, otherwise it stays open for another {@code openDuration}.
+ */
+final class CircuitBreaker {
+    static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    static final Duration DEFAULT_OPEN_DURATION = Duration.ofHours(1);
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private int failures = 0;
+    private long openedAt = 0;
+    private boolean open = false;
+    private boolean probing = false;
+
+    CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Checks whether an attempt may be made.
+     * <p>
+     * If the circuit is open and the open duration elapsed, this lets a single probe through.
+     *
+     * @return true if the attempt is allowed
+     */
+    synchronized boolean tryAcquire() {
+        if (!open) return true;
+        if (probing || System.nanoTime() - openedAt < openNanos) return false;
+        probing = true;
+        return true;
+    }
+
+    /**
+     * Records the outcome of an attempt.
+     *
+     * @param success whether the attempt succeeded
+     * @return true if this outcome opened the circuit
+     */
+    synchronized boolean record(boolean success) {
+        probing = false;
+        if (success) {
+            failures = 0;
+            open = false;
+            return false;
+        }
+        failures++;
+        if (!open && failures < failureThreshold) return false;
+        var opened = !open;
+        open = true;
+        openedAt = System.nanoTime();
+        return opened;
+    }
+
+    synchronized boolean isOpen() {
+        return open;
+    }
+}
@@ -0,0 +1,98 @@
+package dev.faststats.core;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonWriter;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Tracks the last acknowledged chart values of a metrics instance for incremental submission.
+ * <p>
+ * Full snapshots look like this:
+ * <pre>{@code
+ * { "server_id": "...", "sequence": 0, "snapshot": true, "data": { ...all values... } }
+ * }</pre>
+ * Incremental submissions only contain the changed values and the ids of values that are no longer present:
+ * <pre>{@code
+ * { "server_id": "...", "sequence": 1, "snapshot": false, "data": { ...changed values... }, "removed": [ ... ] }
+ * }</pre>
+ * Values only become acknowledged once the metrics server responded with a successful status code,
+ * so every incremental submission is relative to the last state the server is known to have.
+ */
+final class DeltaTracker {
+    private static final Gson GSON = new Gson();
+
+    private final int snapshotInterval;
+
+    private Map<String, JsonElement> acknowledged = Map.of();
+    private @Nullable Map<String, JsonElement> pending = null;
+    private boolean pendingSnapshot = false;
+    private boolean resync = true;
+    private int incrementalCount = 0;
+    private long sequence = 0;
+
+    DeltaTracker(int snapshotInterval) {
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    /**
+     * Writes either a full snapshot or the changes since the last acknowledged submission.
+     *
+     * @param writer   the writer to write to
+     * @param serverId the server id
+     * @param data     the current values
+     * @throws IOException if an I/O error occurs
+     */
+    synchronized void write(JsonWriter writer, UUID serverId, Map<String, JsonElement> data) throws IOException {
+        var snapshot = resync || incrementalCount >= snapshotInterval;
+
+        writer.beginObject();
+        writer.name("server_id").value(serverId.toString());
+        writer.name("sequence").value(sequence++);
+        writer.name("snapshot").value(snapshot);
+        writer.name("data").beginObject();
+        for (var entry : data.entrySet()) {
+            if (!snapshot && entry.getValue().equals(acknowledged.get(entry.getKey()))) continue;
+            GSON.toJson(entry.getValue(), writer.name(entry.getKey()));
+        }
+        writer.endObject();
+        if (!snapshot) {
+            writer.name("removed").beginArray();
+            for (var id : acknowledged.keySet()) {
+                if (!data.containsKey(id)) writer.value(id);
+            }
+            writer.endArray();
+        }
+        writer.endObject();
+
+        this.pending = Map.copyOf(data);
+        this.pendingSnapshot = snapshot;
+    }
+
+    /**
+     * Completes the pending submission.
+     *
+     * @param statusCode the response status code, or {@code -1} if no response was received
+     */
+    synchronized void complete(int statusCode) {
+        var pending = this.pending;
+        this.pending = null;
+
+        if (statusCode == 409) {
+            resync = true;
+        } else if (pending != null && statusCode >= 200 && statusCode < 300) {
+            acknowledged = pending;
+            if (pendingSnapshot) {
+                resync = false;
+                incrementalCount = 0;
+            } else {
+                incrementalCount++;
+            }
+        }
+    }
+}
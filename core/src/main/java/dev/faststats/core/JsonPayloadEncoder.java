@@ -0,0 +1,24 @@
+package dev.faststats.core;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes payloads as UTF-8 JSON.
+ * <p>
+ * The content type predates encoder negotiation and is kept for compatibility.
+ */
+final class JsonPayloadEncoder implements PayloadEncoder {
+    @Override
+    public String contentType() {
+        return "application/octet-stream";
+    }
+
+    @Override
+    public JsonWriter createWriter(OutputStream output) {
+        return new JsonWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+    }
+}
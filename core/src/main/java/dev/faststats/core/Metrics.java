@@ -6,7 +6,10 @@ import org.jetbrains.annotations.Contract;
 
 import java.io.IOException;
 import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Metrics interface.
@@ -33,15 +36,29 @@ public interface Metrics {
     @Contract(pure = true)
     Config getConfig();
 
+    /**
+     * Get a snapshot of the statistics of the submission pipeline.
+     * <p>
+     * The statistics are cumulative since this instance was created and are collected regardless of debug logging,
+     * so a slow chart or an unhealthy metrics server can be spotted without enabling it.
+     *
+     * @return the submission statistics
+     * @since 0.1.0
+     */
+    @Contract(value = " -> new", pure = true)
+    Stats stats();
+
     /**
      * Shuts down the metrics submission.
      * <p>
      * This method should be called when the application is shutting down.
+     * Pending retries are stored for later submission.
      *
+     * @return a future completing once all in-flight requests finished
      * @since 0.1.0
      */
     @Contract(mutates = "this")
-    void shutdown();
+    CompletableFuture<Void> shutdown();
 
     /**
      * A metrics factory.
@@ -60,6 +77,183 @@ public interface Metrics {
         @Contract(mutates = "this")
         Factory<T> addChart(Chart<?> chart) throws IllegalArgumentException;
 
+        /**
+         * Sets the maximum time a single chart may take to compute its data.
+         * <p>
+         * Charts are computed in parallel, charts exceeding this timeout are left out of the submission.
+         * Defaults to 5 seconds.
+         *
+         * @param timeout the chart timeout
+         * @return the metrics factory
+         * @throws IllegalArgumentException if the timeout is not positive
+         * @since 0.1.0
+         */
+        @Contract(mutates = "this")
+        Factory<T> chartTimeout(Duration timeout) throws IllegalArgumentException;
+
+        /**
+         * Sets the maximum time collecting the data of all charts may take.
+         * <p>
+         * Charts that did not complete once this timeout is reached are left out of the submission.
+         * Defaults to 10 seconds.
+         *
+         * @param timeout the collection timeout
+         * @return the metrics factory
+         * @throws IllegalArgumentException if the timeout is not positive
+         * @since 0.1.0
+         */
+        @Contract(mutates = "this")
+        Factory<T> collectionTimeout(Duration timeout) throws IllegalArgumentException;
+
+        /**
+         * Sets a pre-trained zstd dictionary used to compress the submitted data.
+         * <p>
+         * Metrics payloads are small and share most of their keys,
+         * which a dictionary trained on captured payloads compresses considerably better.
+         * The dictionary id is sent alongside the data so the metrics server can pick the matching dictionary.
+         * <p>
+         * Dictionaries can be trained using the {@code trainDictionary} task of the core project.
+         *
+         * @param dictionary the trained dictionary
+         * @return the metrics factory
+         * @throws IllegalArgumentException if the given bytes are not a trained zstd dictionary
+         * @since 0.1.0
+         */
+        @Contract(mutates = "this")
+        Factory<T> dictionary(byte[] dictionary) throws IllegalArgumentException;
+
+        /**
+         * Enables incremental submission, sending only the values that changed since the last acknowledged submission.
+         * <p>
+         * Every submission carries a sequence number.
+         * A full snapshot is sent on the first submission, whenever the metrics server requests a resync
+         * by responding with {@code 409 Conflict}, and after {@code snapshotInterval} incremental submissions.
+         * <p>
+         * Incremental submission does not apply to {@link #batch(boolean) batched} instances.
+         *
+         * @param snapshotInterval the number of incremental submissions between full snapshots, or {@code 0} to disable
+         * @return the metrics factory
+         * @throws IllegalArgumentException if the snapshot interval is negative
+         * @since 0.1.0
+         */
+        @Contract(mutates = "this")
+        Factory<T> incremental(int snapshotInterval) throws IllegalArgumentException;
+
+        /**
+         * Sets the retry policy for failed submissions.
+         * <p>
+         * Submissions that fail because the metrics server cannot be reached or responds with a server error
+         * are retried using exponential backoff with full jitter:
+         * the delay before each retry is chosen randomly between zero and {@code baseDelay * 2^(retry - 1)},
+         * capped at {@code maxDelay}.
+         * Defaults to 3 attempts with a base delay of 5 seconds and a max delay of 1 minute.
+         *
+         * @param maxAttempts the maximum number of attempts, including the first one
+         * @param baseDelay   the base delay
+         * @param maxDelay    the maximum delay
+         * @return the metrics factory
+         * @throws IllegalArgumentException if max attempts is less than 1, the base delay is negative
+         *                                  or the max delay is less than the base delay
+         * @since 0.1.0
+         */
+        @Contract(mutates = "this")
+        Factory<T> retry(int maxAttempts, Duration baseDelay, Duration maxDelay) throws IllegalArgumentException;
+
+        /**
+         * Configures the circuit breaker pausing submissions while the metrics server keeps failing.
+         * <p>
+         * After {@code failureThreshold} consecutive failed attempts, no further attempts are made for {@code openDuration}.
+         * Afterward, a single attempt probes whether the metrics server recovered.
+         * Defaults to 5 failures and 1 hour.
+         *
+         * @param failureThreshold the number of consecutive failures opening the circuit
+         * @param openDuration     the time to wait before probing again
+         * @return the metrics factory
+         * @throws IllegalArgumentException if the failure threshold is less than 1 or the duration is not positive
+         * @since 0.1.0
+         */
+        @Contract(mutates = "this")
+        Factory<T> circuitBreaker(int failureThreshold, Duration openDuration) throws IllegalArgumentException;
+
+        /**
+         * Sets the maximum size of the on-disk outbox.
+         * <p>
+         * Submissions that fail because the metrics server cannot be reached or responds with a server error
+         * are stored in the outbox next to the metrics configuration and replayed in order once the server recovers.
+         * Once the outbox exceeds this size, the oldest submissions are dropped.
+         * Defaults to 256 KiB.
+         *
+         * @param bytes the maximum outbox size in bytes, or {@code 0} to disable the outbox
+         * @return the metrics factory
+         * @throws IllegalArgumentException if the size is negative
+         * @since 0.1.0
+         */
+        @Contract(mutates = "this")
+        Factory<T> outboxSize(long bytes) throws IllegalArgumentException;
+
+        /**
+         * Enables or disables batched submission for this metrics instance.
+         * <p>
+         * Batched instances sharing the same {@link Config#serverId() server id} and metrics server URL
+         * are submitted together in a single request, which contains the server data only once
+         * followed by the project data of every instance.
+         * This includes instances of other plugins, even if they shade their own copy of this library.
+         * <p>
+         * The request is encoded, compressed, sent and retried by one of the instances,
+         * so only instances with the same encoder, dictionary, HTTP version, retry policy and outbox setting are batched together.
+         *
+         * @param enabled whether batched submission is enabled
+         * @return the metrics factory
+         * @since 0.1.0
+         */
+        @Contract(mutates = "this")
+        Factory<T> batch(boolean enabled);
+
+        /**
+         * Enables or disables virtual threads for this metrics instance.
+         * <p>
+         * When enabled, every submission cycle and every chart computation runs on its own virtual thread,
+         * while only a single timer thread is kept for scheduling.
+         * Blocking chart code, like database queries or file reads, then does not occupy a platform thread while waiting.
+         *
+         * @param enabled whether virtual threads are enabled
+         * @return the metrics factory
+         * @since 0.1.0
+         */
+        @Contract(mutates = "this")
+        Factory<T> virtualThreads(boolean enabled);
+
+        /**
+         * Enables or disables HTTP/2 for this metrics instance.
+         * <p>
+         * All instances share a single HTTP client, so with HTTP/2 requests sent close together,
+         * like {@link #batch(boolean) batched} submissions of several instances, retries and replayed submissions,
+         * are multiplexed over one connection per metrics server and the handshake is only paid once.
+         * Idle connections are closed after about half a minute, so submissions of a regular period
+         * usually open a new connection.
+         * If the metrics server does not support HTTP/2, requests fall back to HTTP/1.1.
+         *
+         * @param enabled whether HTTP/2 is enabled
+         * @return the metrics factory
+         * @since 0.1.0
+         */
+        @Contract(mutates = "this")
+        Factory<T> http2(boolean enabled);
+
+        /**
+         * Sets the payload encoder for this metrics instance.
+         * <p>
+         * Defaults to {@link PayloadEncoder#JSON}.
+         * {@link PayloadEncoder#BINARY} produces smaller payloads that are cheaper to generate and parse,
+         * but requires a metrics server supporting it.
+         *
+         * @param encoder the payload encoder
+         * @return the metrics factory
+         * @since 0.1.0
+         */
+        @Contract(mutates = "this")
+        Factory<T> encoder(PayloadEncoder encoder);
+
         /**
          * Enables or disabled debug mode for this metrics instance.
          * <p>
@@ -154,4 +348,175 @@ public interface Metrics {
         @Contract(pure = true)
         boolean debug();
     }
+
+    /**
+     * A snapshot of the statistics of the submission pipeline.
+     *
+     * @see #stats()
+     * @since 0.1.0
+     */
+    interface Stats {
+        /**
+         * The compute statistics of every chart, by chart id.
+         *
+         * @return the chart statistics
+         * @since 0.1.0
+         */
+        @Contract(pure = true)
+        Map<String, ChartStats> charts();
+
+        /**
+         * The number of payloads that were collected and compressed.
+         *
+         * @return the number of payloads
+         * @since 0.1.0
+         */
+        @Contract(pure = true)
+        long payloads();
+
+        /**
+         * The total size of all payloads before compression.
+         *
+         * @return the uncompressed size in bytes
+         * @since 0.1.0
+         */
+        @Contract(pure = true)
+        long uncompressedBytes();
+
+        /**
+         * The total size of all payloads after compression.
+         *
+         * @return the compressed size in bytes
+         * @since 0.1.0
+         */
+        @Contract(pure = true)
+        long compressedBytes();
+
+        /**
+         * The ratio of the uncompressed to the compressed size of all payloads.
+         *
+         * @return the compression ratio, or {@code 0} if no payload was compressed yet
+         * @since 0.1.0
+         */
+        @Contract(pure = true)
+        double compressionRatio();
+
+        /**
+         * The number of requests the metrics server responded to.
+         *
+         * @return the number of responses
+         * @since 0.1.0
+         */
+        @Contract(pure = true)
+        long responses();
+
+        /**
+         * The average time between sending a request and receiving the response.
+         *
+         * @return the average request latency, or {@link Duration#ZERO} if no response was received yet
+         * @since 0.1.0
+         */
+        @Contract(pure = true)
+        Duration averageLatency();
+
+        /**
+         * The longest time between sending a request and receiving the response.
+         *
+         * @return the maximum request latency
+         * @since 0.1.0
+         */
+        @Contract(pure = true)
+        Duration maxLatency();
+
+        /**
+         * The number of responses per status code.
+         *
+         * @return the response counts, ordered by status code
+         * @since 0.1.0
+         */
+        @Contract(pure = true)
+        Map<Integer, Long> statusCodes();
+
+        /**
+         * The number of requests that received no response,
+         * because the metrics server could not be reached or the request timed out.
+         *
+         * @return the number of failed requests
+         * @since 0.1.0
+         */
+        @Contract(pure = true)
+        long failedRequests();
+
+        /**
+         * The number of retried submissions.
+         *
+         * @return the number of retries
+         * @since 0.1.0
+         */
+        @Contract(pure = true)
+        long retries();
+
+        /**
+         * The number of submissions that were given up on,
+         * either because they could not be stored for later or because they were evicted from the full outbox.
+         *
+         * @return the number of dropped submissions
+         * @since 0.1.0
+         */
+        @Contract(pure = true)
+        long droppedSubmissions();
+    }
+
+    /**
+     * The compute statistics of a single chart.
+     *
+     * @see Stats#charts()
+     * @since 0.1.0
+     */
+    interface ChartStats {
+        /**
+         * The number of times the chart data was computed.
+         *
+         * @return the number of computations
+         * @since 0.1.0
+         */
+        @Contract(pure = true)
+        long computations();
+
+        /**
+         * The average time computing the chart data took.
+         *
+         * @return the average compute time, or {@link Duration#ZERO} if the chart was not computed yet
+         * @since 0.1.0
+         */
+        @Contract(pure = true)
+        Duration averageTime();
+
+        /**
+         * The longest time computing the chart data took.
+         *
+         * @return the maximum compute time
+         * @since 0.1.0
+         */
+        @Contract(pure = true)
+        Duration maxTime();
+
+        /**
+         * The number of times the chart exceeded the chart or collection timeout and was left out.
+         *
+         * @return the number of timeouts
+         * @since 0.1.0
+         */
+        @Contract(pure = true)
+        long timeouts();
+
+        /**
+         * The number of times computing the chart data failed with an exception.
+         *
+         * @return the number of failures
+         * @since 0.1.0
+         */
+        @Contract(pure = true)
+        long failures();
+    }
 }
@@ -0,0 +1,210 @@
+package dev.faststats.core;
+
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * A bounded on-disk outbox for compressed payloads that could not be submitted.
+ * <p>
+ * Every payload is stored in its own file, which is written to a temporary file first
+ * and then atomically moved into place, so a crash never leaves a partially written entry behind.
+ * Entries are replayed in the order they were stored.
+ * Once the total size exceeds the limit, the oldest entries are evicted.
+ * <p>
+ * Entry format:
+ * <pre>
+ * int     version
+ * long    submission time (epoch millis)
+ * boolean batch
+ * utf     content type
+ * long    dictionary id
+ * int     payload length
+ * byte[]  payload
+ * long    crc32 of the payload
+ * </pre>
+ */
+final class Outbox {
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".entry";
+
+    private final Deque<Path> entries = new ArrayDeque<>();
+    private final Path directory;
+    private final long maxSize;
+    private long size = 0;
+    private long counter = 0;
+
+    Outbox(Path directory, long maxSize) throws IOException {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        load();
+    }
+
+    private void load() throws IOException {
+        if (!Files.isDirectory(directory)) return;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (var file : files.sorted().toList()) {
+                if (!file.getFileName().toString().endsWith(SUFFIX)) {
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                entries.addLast(file);
+                size += Files.size(file);
+                counter = Math.max(counter, sequence(file) + 1);
+            }
+        }
+    }
+
+    @Contract(pure = true)
+    synchronized boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Stores a compressed payload, evicting the oldest entries if the size limit is exceeded.
+     *
+     * @param entry the entry to store
+     * @return the number of evicted entries, including the given entry if it exceeds the size limit on its own
+     * @throws IOException if the entry could not be written
+     */
+    synchronized int store(Entry entry) throws IOException {
+        var bytes = new ByteArrayOutputStream(entry.payload().length + 40);
+        try (var out = new DataOutputStream(bytes)) {
+            var crc = new CRC32();
+            crc.update(entry.payload());
+            out.writeInt(VERSION);
+            out.writeLong(entry.submittedAt().toEpochMilli());
+            out.writeBoolean(entry.batch());
+            out.writeUTF(entry.contentType());
+            out.writeLong(entry.dictionaryId());
+            out.writeInt(entry.payload().length);
+            out.write(entry.payload());
+            out.writeLong(crc.getValue());
+        }
+        if (bytes.size() > maxSize) return 1;
+
+        Files.createDirectories(directory);
+        var file = directory.resolve("%019d%s".formatted(counter++, SUFFIX));
+        var temp = Files.createTempFile(directory, "outbox", ".tmp");
+        try {
+            Files.write(temp, bytes.toByteArray());
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        entries.addLast(file);
+        size += bytes.size();
+
+        var evicted = 0;
+        while (size > maxSize && !entries.isEmpty()) {
+            remove(entries.getFirst());
+            evicted++;
+        }
+        return evicted;
+    }
+
+    /**
+     * Replays the stored entries in order until the sender fails.
+     * <p>
+     * Entries are sent one after another, each once the previous one was delivered.
+     * Entries are removed once they were sent, or if they are corrupted.
+     *
+     * @param sender the sender, completing with whether the entry was delivered
+     * @return a future completing with true if all entries were delivered,
+     * or completing exceptionally if an entry could not be read or removed
+     */
+    CompletableFuture<Boolean> replay(Sender sender) {
+        try {
+            Path file;
+            Entry entry;
+            synchronized (this) {
+                do {
+                    file = entries.peekFirst();
+                    if (file == null) return CompletableFuture.completedFuture(true);
+                    entry = read(file);
+                    if (entry == null) remove(file);
+                } while (entry == null);
+            }
+            var sent = file;
+            return sender.send(entry).thenCompose(delivered -> {
+                if (!delivered) return CompletableFuture.completedFuture(false);
+                try {
+                    synchronized (this) {
+                        remove(sent);
+                    }
+                } catch (IOException e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+                return replay(sender);
+            });
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void remove(Path file) throws IOException {
+        entries.remove(file);
+        if (Files.exists(file)) size -= Files.size(file);
+        Files.deleteIfExists(file);
+    }
+
+    private static @Nullable Entry read(Path file) throws IOException {
+        try (var in = new DataInputStream(Files.newInputStream(file))) {
+            var version = in.readInt();
+            if (version != VERSION) return null;
+            var submittedAt = Instant.ofEpochMilli(in.readLong());
+            var batch = in.readBoolean();
+            var contentType = in.readUTF();
+            var dictionaryId = in.readLong();
+            var length = in.readInt();
+            if (length < 0) return null;
+            var payload = in.readNBytes(length);
+            var crc = new CRC32();
+            crc.update(payload);
+            if (in.readLong() != crc.getValue()) return null;
+            return new Entry(submittedAt, batch, contentType, dictionaryId, payload);
+        } catch (IOException e) {
+            if (Files.exists(file)) return null;
+            throw e;
+        }
+    }
+
+    private static long sequence(Path file) {
+        var name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * A stored payload.
+     *
+     * @param submittedAt  the time the payload was originally submitted
+     * @param batch        whether the payload is a batched submission
+     * @param contentType  the content type of the encoded payload
+     * @param dictionaryId the id of the dictionary the payload was compressed with, or {@code 0}
+     * @param payload      the compressed payload
+     */
+    record Entry(Instant submittedAt, boolean batch, String contentType, long dictionaryId, byte[] payload) {
+    }
+
+    @FunctionalInterface
+    interface Sender {
+        CompletableFuture<Boolean> send(Entry entry);
+    }
+}
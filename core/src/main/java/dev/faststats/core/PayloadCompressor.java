@@ -0,0 +1,155 @@
+package dev.faststats.core;
+
+import com.github.luben.zstd.EndDirective;
+import com.github.luben.zstd.ZstdCompressCtx;
+import com.github.luben.zstd.ZstdDictCompress;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.Nullable;
+
+import java.io.OutputStream;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A reusable zstd compressor writing into pooled direct buffers.
+ * <p>
+ * Instances are pooled by the {@link SubmissionHub} and reused across submissions and metrics instances,
+ * so steady-state compression neither sets up a new native context nor allocates new buffers.
+ * The output buffer grows to fit the largest payload and shrinks again once recent payloads became smaller.
+ * <p>
+ * A compressor is used for one payload at a time:
+ * {@link #begin(ZstdDictCompress)}, write the payload, {@link #finish()}, send the {@link #publisher()}
+ * and finally return it to the hub.
+ * Closing the stream has no effect, the native context is only released by {@link #free()}.
+ */
+final class PayloadCompressor extends OutputStream {
+    static final int COMPRESSION_LEVEL = 6;
+    private static final int INPUT_SIZE = 8192;
+    private static final int MIN_OUTPUT_SIZE = 4096;
+
+    private final ZstdCompressCtx context = new ZstdCompressCtx();
+    private final ByteBuffer input = ByteBuffer.allocateDirect(INPUT_SIZE);
+    private ByteBuffer output = ByteBuffer.allocateDirect(MIN_OUTPUT_SIZE);
+    private int recentSize = MIN_OUTPUT_SIZE;
+    private long uncompressedSize = 0;
+
+    /**
+     * Prepares the compressor for a new payload.
+     *
+     * @param dictionary the dictionary to compress with, or null
+     */
+    void begin(@Nullable ZstdDictCompress dictionary) {
+        context.reset();
+        context.setLevel(COMPRESSION_LEVEL);
+        if (dictionary != null) context.loadDict(dictionary);
+
+        var expected = Math.max(MIN_OUTPUT_SIZE, recentSize * 2);
+        if (output.capacity() > expected * 2) output = ByteBuffer.allocateDirect(expected);
+        input.clear();
+        output.clear();
+        uncompressedSize = 0;
+    }
+
+    @Override
+    public void write(int b) {
+        if (!input.hasRemaining()) compress(EndDirective.CONTINUE);
+        input.put((byte) b);
+        uncompressedSize++;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        while (length > 0) {
+            if (!input.hasRemaining()) compress(EndDirective.CONTINUE);
+            var count = Math.min(length, input.remaining());
+            input.put(bytes, offset, count);
+            offset += count;
+            length -= count;
+            uncompressedSize += count;
+        }
+    }
+
+    /**
+     * Ends the current frame, the compressed payload is available through {@link #publisher()} afterward.
+     *
+     * @return the compressed size
+     */
+    int finish() {
+        compress(EndDirective.END);
+        output.flip();
+        recentSize = (recentSize * 7 + output.remaining()) / 8;
+        return output.remaining();
+    }
+
+    @Contract(pure = true)
+    long uncompressedSize() {
+        return uncompressedSize;
+    }
+
+    private void compress(EndDirective directive) {
+        input.flip();
+        while (true) {
+            var done = context.compressDirectByteBufferStream(output, input, directive);
+            if (directive == EndDirective.END ? done : !input.hasRemaining()) break;
+            if (!output.hasRemaining()) grow();
+        }
+        input.clear();
+    }
+
+    private void grow() {
+        var grown = ByteBuffer.allocateDirect(output.capacity() * 2);
+        output.flip();
+        grown.put(output);
+        output = grown;
+    }
+
+    /**
+     * Creates a body publisher for the compressed payload.
+     * <p>
+     * The publisher reads directly from the pooled buffer,
+     * so the compressor must not be reused before the request completed.
+     *
+     * @return the body publisher
+     */
+    @Contract(value = " -> new", pure = true)
+    HttpRequest.BodyPublisher publisher() {
+        var body = output.asReadOnlyBuffer();
+        Flow.Publisher<ByteBuffer> publisher = subscriber -> subscriber.onSubscribe(new Flow.Subscription() {
+            private final AtomicBoolean done = new AtomicBoolean();
+
+            @Override
+            public void request(long n) {
+                if (n <= 0 || !done.compareAndSet(false, true)) return;
+                subscriber.onNext(body.duplicate());
+                subscriber.onComplete();
+            }
+
+            @Override
+            public void cancel() {
+                done.set(true);
+            }
+        });
+        return HttpRequest.BodyPublishers.fromPublisher(publisher, body.remaining());
+    }
+
+    /**
+     * Copies the compressed payload to a new array.
+     *
+     * @return the compressed payload
+     */
+    @Contract(value = " -> new", pure = true)
+    byte[] toByteArray() {
+        var bytes = new byte[output.remaining()];
+        output.duplicate().get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Frees the native compression context, the compressor must not be used afterward.
+     */
+    void free() {
+        context.close();
+    }
+}
@@ -0,0 +1,59 @@
+package dev.faststats.core;
+
+import com.google.gson.stream.JsonWriter;
+import org.jetbrains.annotations.Contract;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A payload encoder, defining the wire format of submitted payloads.
+ * <p>
+ * Payloads are always produced through a {@link JsonWriter},
+ * the encoder decides how the written tokens end up on the wire.
+ * The metrics server tells the formats apart by the {@link #contentType() content type}.
+ *
+ * @see Metrics.Factory#encoder(PayloadEncoder)
+ * @since 0.1.0
+ */
+public interface PayloadEncoder {
+    /**
+     * The default encoder, writing plain JSON.
+     *
+     * @since 0.1.0
+     */
+    PayloadEncoder JSON = new JsonPayloadEncoder();
+
+    /**
+     * A compact binary encoder.
+     * <p>
+     * Numbers are written as varints, every value is prefixed with a type tag
+     * and chart ids and other strings are only written once, later occurrences refer to a string table.
+     *
+     * @see BinaryPayloadWriter
+     * @since 0.1.0
+     */
+    PayloadEncoder BINARY = new BinaryPayloadEncoder();
+
+    /**
+     * Get the content type sent along with encoded payloads.
+     *
+     * @return the content type
+     * @since 0.1.0
+     */
+    @Contract(pure = true)
+    String contentType();
+
+    /**
+     * Create a writer encoding into the given output stream.
+     * <p>
+     * Flushing the writer writes all pending data to the output stream.
+     *
+     * @param output the output stream
+     * @return the writer
+     * @throws IOException if an I/O error occurs
+     * @since 0.1.0
+     */
+    @Contract(value = "_ -> new")
+    JsonWriter createWriter(OutputStream output) throws IOException;
+}
@@ -0,0 +1,200 @@
+package dev.faststats.core;
+
+import dev.faststats.core.chart.Chart;
+import org.jetbrains.annotations.Contract;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The statistics of the submission pipeline of a single metrics instance.
+ * <p>
+ * Everything is kept in primitive counters that are updated without locking,
+ * the chart counters are created once for the fixed set of charts,
+ * so recording never allocates and reading a {@link #snapshot()} never blocks the pipeline.
+ */
+final class PipelineStats {
+    private static final int MAX_STATUS_CODE = 599;
+
+    private final Map<String, ChartCounters> charts;
+    private final LongAdder payloads = new LongAdder();
+    private final LongAdder uncompressedBytes = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder responses = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    private final AtomicLongArray statusCodes = new AtomicLongArray(MAX_STATUS_CODE + 1);
+    private final LongAdder failedRequests = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder droppedSubmissions = new LongAdder();
+
+    PipelineStats(Collection<Chart<?>> charts) {
+        var counters = new HashMap<String, ChartCounters>(charts.size());
+        charts.forEach(chart -> counters.put(chart.getId(), new ChartCounters()));
+        this.charts = Map.copyOf(counters);
+    }
+
+    /**
+     * Computes the data of a chart, recording the time it took.
+     *
+     * @param chart   the chart
+     * @param compute the computation
+     * @param <T>     the result type
+     * @return the result of the computation
+     * @throws Exception if the computation fails
+     */
+    <T> T compute(Chart<?> chart, Callable<T> compute) throws Exception {
+        var counters = charts.get(chart.getId());
+        var start = System.nanoTime();
+        try {
+            return compute.call();
+        } finally {
+            if (counters != null) counters.record(System.nanoTime() - start);
+        }
+    }
+
+    void chartTimeout(Chart<?> chart) {
+        var counters = charts.get(chart.getId());
+        if (counters != null) counters.timeouts.increment();
+    }
+
+    void chartFailure(Chart<?> chart) {
+        var counters = charts.get(chart.getId());
+        if (counters != null) counters.failures.increment();
+    }
+
+    void payload(long uncompressedSize, long compressedSize) {
+        payloads.increment();
+        uncompressedBytes.add(uncompressedSize);
+        compressedBytes.add(compressedSize);
+    }
+
+    void response(int statusCode, long latencyNanos) {
+        responses.increment();
+        this.latencyNanos.add(latencyNanos);
+        maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+        if (statusCode >= 0 && statusCode <= MAX_STATUS_CODE) statusCodes.incrementAndGet(statusCode);
+    }
+
+    void failedRequest() {
+        failedRequests.increment();
+    }
+
+    void retry() {
+        retries.increment();
+    }
+
+    void dropped(int submissions) {
+        droppedSubmissions.add(submissions);
+    }
+
+    /**
+     * Takes a snapshot of the current statistics.
+     * <p>
+     * Counters are read one after another, so a snapshot taken during a submission may be slightly inconsistent.
+     *
+     * @return the snapshot
+     */
+    @Contract(value = " -> new", pure = true)
+    Metrics.Stats snapshot() {
+        var charts = new HashMap<String, Metrics.ChartStats>(this.charts.size());
+        this.charts.forEach((id, counters) -> charts.put(id, counters.snapshot()));
+
+        var statusCodes = new LinkedHashMap<Integer, Long>();
+        for (var statusCode = 0; statusCode <= MAX_STATUS_CODE; statusCode++) {
+            var count = this.statusCodes.get(statusCode);
+            if (count > 0) statusCodes.put(statusCode, count);
+        }
+
+        return new Snapshot(
+                Map.copyOf(charts),
+                payloads.sum(),
+                uncompressedBytes.sum(),
+                compressedBytes.sum(),
+                responses.sum(),
+                latencyNanos.sum(),
+                maxLatencyNanos.get(),
+                Collections.unmodifiableMap(statusCodes),
+                failedRequests.sum(),
+                retries.sum(),
+                droppedSubmissions.sum()
+        );
+    }
+
+    private static Duration average(long totalNanos, long count) {
+        return count > 0 ? Duration.ofNanos(totalNanos / count) : Duration.ZERO;
+    }
+
+    private static final class ChartCounters {
+        private final LongAdder computations = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        private void record(long nanos) {
+            computations.increment();
+            this.nanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        private Metrics.ChartStats snapshot() {
+            return new ChartSnapshot(computations.sum(), nanos.sum(), maxNanos.get(), timeouts.sum(), failures.sum());
+        }
+    }
+
+    private record ChartSnapshot(
+            long computations,
+            long totalNanos,
+            long maxNanos,
+            long timeouts,
+            long failures
+    ) implements Metrics.ChartStats {
+        @Override
+        public Duration averageTime() {
+            return average(totalNanos, computations);
+        }
+
+        @Override
+        public Duration maxTime() {
+            return Duration.ofNanos(maxNanos);
+        }
+    }
+
+    private record Snapshot(
+            Map<String, Metrics.ChartStats> charts,
+            long payloads,
+            long uncompressedBytes,
+            long compressedBytes,
+            long responses,
+            long latencyNanos,
+            long maxLatencyNanos,
+            Map<Integer, Long> statusCodes,
+            long failedRequests,
+            long retries,
+            long droppedSubmissions
+    ) implements Metrics.Stats {
+        @Override
+        public double compressionRatio() {
+            return compressedBytes > 0 ? (double) uncompressedBytes / compressedBytes : 0;
+        }
+
+        @Override
+        public Duration averageLatency() {
+            return average(latencyNanos, responses);
+        }
+
+        @Override
+        public Duration maxLatency() {
+            return Duration.ofNanos(maxLatencyNanos);
+        }
+    }
+}
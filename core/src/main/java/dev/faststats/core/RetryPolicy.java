@@ -0,0 +1,33 @@
+package dev.faststats.core;
+
+import org.jetbrains.annotations.Contract;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A retry policy using exponential backoff with full jitter.
+ *
+ * @param maxAttempts the maximum number of attempts, including the first one
+ * @param baseDelay   the delay before the first retry, doubled for every further retry
+ * @param maxDelay    the upper bound of the delay
+ */
+record RetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay) {
+    static final RetryPolicy DEFAULT = new RetryPolicy(3, Duration.ofSeconds(5), Duration.ofMinutes(1));
+
+    /**
+     * Computes the delay before the given retry.
+     * <p>
+     * The delay is chosen uniformly between zero and the exponential backoff,
+     * so clients failing at the same time spread their retries.
+     *
+     * @param retry the retry, starting at {@code 1}
+     * @return the delay in milliseconds
+     */
+    @Contract(pure = true)
+    long delay(int retry) {
+        var backoff = baseDelay.toMillis() << Math.min(retry - 1, 30);
+        var bound = Math.min(maxDelay.toMillis(), backoff < 0 ? Long.MAX_VALUE : backoff);
+        return ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+}
@@ -0,0 +1,389 @@
+package dev.faststats.core;
+
+import org.jetbrains.annotations.Contract;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The threads, the HTTP client and the request queue shared by the {@link SubmissionHub hubs} of all class loaders.
+ * <p>
+ * Plugins shade their own copy of this library, so every plugin class loader has its own hub.
+ * To still use a single scheduler, HTTP client and set of pools per JVM,
+ * they are kept in a map registered with the {@link ManagementFactory#getPlatformMBeanServer() platform MBean server}
+ * as {@value #OBJECT_NAME}, which every class loader sees.
+ * The map is exposed as the result of a completed {@link Future}, so the registered MBean is a JDK type as well.
+ * Only JDK types are stored in the map, the classes of this library differ between class loaders,
+ * and threads are created by JDK thread factories, so a shared pool never references the class loader of a plugin.
+ * <p>
+ * Shared resources must not keep an unloaded plugin alive.
+ * Cancelled timers are removed from the scheduler right away, and requests a class loader still has queued
+ * are dropped once it {@link #release() releases} the resources.
+ * Platform threads capture the protection domains of the code creating them, which reference its class loader,
+ * so the scheduler and the callbacks of the HTTP client run on virtual threads, which do not,
+ * and the pools and the HTTP client are replaced whenever a class loader releases the resources.
+ * If the platform MBean server is unavailable, the resources are only shared within the class loader.
+ * <p>
+ * The members of {@link SubmissionBatch batches} are shared the same way, so batches span class loaders.
+ * <p>
+ * The map itself serves as lock and counts the hubs using the resources.
+ * Once the last hub {@link #release() releases} them, the threads are shut down,
+ * the HTTP client once the last request completed.
+ */
+final class SharedResources {
+    private static final String OBJECT_NAME = "dev.faststats.core:type=SharedResources,version=1";
+
+    private static final String USERS = "users";
+    private static final String SCHEDULER = "scheduler";
+    private static final String COLLECTOR = "collector";
+    private static final String CHARTS = "charts";
+    private static final String VIRTUAL = "virtual";
+    private static final String HTTP_CLIENT = "http-client";
+    private static final String IN_FLIGHT = "in-flight";
+    private static final String QUEUED_REQUESTS = "queued-requests";
+    private static final String STUCK_CHARTS = "stuck-charts";
+    private static final String BATCHES = "batches";
+
+    private static final int MAX_IN_FLIGHT = 8;
+    private static final int MAX_STUCK_CHARTS = 16;
+
+    private final Map<String, Object> resources;
+
+    private SharedResources(Map<String, Object> resources) {
+        this.resources = resources;
+    }
+
+    /**
+     * Looks up the resources shared by all class loaders, creating them if this is the first class loader.
+     *
+     * @return the shared resources
+     */
+    static SharedResources lookup() {
+        try {
+            var server = ManagementFactory.getPlatformMBeanServer();
+            var name = new ObjectName(OBJECT_NAME);
+            try {
+                return new SharedResources(resources(server, name));
+            } catch (InstanceNotFoundException e) {
+                var resources = new HashMap<String, Object>();
+                try {
+                    server.registerMBean(new StandardMBean(CompletableFuture.completedFuture(resources), Future.class), name);
+                    return new SharedResources(resources);
+                } catch (InstanceAlreadyExistsException ignored) {
+                    // registered by another class loader in the meantime
+                    return new SharedResources(resources(server, name));
+                }
+            }
+        } catch (JMException | SecurityException e) {
+            return new SharedResources(new HashMap<>());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> resources(MBeanServer server, ObjectName name) throws JMException {
+        return (Map<String, Object>) server.invoke(name, "get", null, null);
+    }
+
+    /**
+     * Marks the calling hub as user of the shared resources.
+     */
+    void acquire() {
+        synchronized (resources) {
+            resources.merge(USERS, 1, (a, b) -> (Integer) a + (Integer) b);
+        }
+    }
+
+    /**
+     * Releases the shared resources for the calling hub, shutting them down if it was the last user.
+     * <p>
+     * Requests of the calling class loader that are still queued are dropped and {@link #dispatch(Runnable, Runnable) rejected},
+     * and its remaining batch members are removed.
+     */
+    void release() {
+        var rejected = new ArrayList<Runnable>(0);
+        synchronized (resources) {
+            queuedRequests().removeIf(request -> {
+                if (!isOwn(request.getKey())) return false;
+                rejected.add(request.getValue());
+                return true;
+            });
+            leaveBatches();
+            var users = (Integer) resources.merge(USERS, -1, (a, b) -> (Integer) a + (Integer) b);
+            if (users > 0) {
+                // their threads may have been created by code of the releasing class loader, the next use creates new ones
+                shutdown(COLLECTOR, ExecutorService::shutdown);
+                shutdown(CHARTS, ExecutorService::shutdown);
+                releaseHttpClient();
+            } else {
+                resources.remove(USERS);
+                shutdown(SCHEDULER, ExecutorService::shutdown);
+                shutdown(COLLECTOR, ExecutorService::shutdown);
+                shutdown(CHARTS, ExecutorService::shutdownNow);
+                shutdown(VIRTUAL, ExecutorService::shutdownNow);
+                if (inFlight() == 0) releaseHttpClient();
+            }
+        }
+        rejected.forEach(Runnable::run);
+    }
+
+    private void shutdown(String key, Consumer<ExecutorService> shutdown) {
+        if (resources.remove(key) instanceof ExecutorService executor) shutdown.accept(executor);
+    }
+
+    @Contract(pure = true)
+    private boolean isUsed() {
+        return resources.containsKey(USERS);
+    }
+
+    /**
+     * Returns the scheduler shared by all instances.
+     * <p>
+     * Cancelled tasks are removed from its queue right away, and delayed tasks are dropped once it is shut down,
+     * so the timers of an unloaded plugin do not keep its class loader alive until they would have fired.
+     * The scheduler only fires timers, so it runs on a virtual thread.
+     *
+     * @return the shared scheduler
+     */
+    ScheduledExecutorService scheduler() {
+        return get(SCHEDULER, ScheduledExecutorService.class, () -> {
+            var scheduler = new ScheduledThreadPoolExecutor(1, Thread.ofVirtual().name("metrics-submitter")
+                    .inheritInheritableThreadLocals(false).factory());
+            scheduler.setRemoveOnCancelPolicy(true);
+            scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+            return scheduler;
+        });
+    }
+
+    ExecutorService collectorExecutor() {
+        return get(COLLECTOR, ExecutorService.class, () -> {
+            var executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    Thread.ofPlatform().name("metrics-collector").daemon()
+                            .inheritInheritableThreadLocals(false).factory());
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        });
+    }
+
+    ExecutorService chartExecutor() {
+        return get(CHARTS, ExecutorService.class, () -> {
+            var threads = chartThreads() + Math.min(stuckCharts(), MAX_STUCK_CHARTS);
+            var executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    Thread.ofPlatform().name("metrics-chart-", 1).daemon()
+                            .inheritInheritableThreadLocals(false).factory());
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        });
+    }
+
+    ExecutorService virtualExecutor() {
+        return get(VIRTUAL, ExecutorService.class, () -> Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("metrics-virtual-", 1)
+                        .inheritInheritableThreadLocals(false).factory()));
+    }
+
+    /**
+     * Returns the HTTP client shared by all instances.
+     * <p>
+     * Requests choose their protocol version themselves,
+     * so HTTP/2 requests to the same metrics server are multiplexed over a single pooled connection.
+     * The connection is only reused within a burst of requests, like batches, retries and outbox replays,
+     * since the client closes idle connections after its keep-alive timeout of about half a minute,
+     * long before the next regular submission.
+     * The timeout is a JVM-wide setting and is deliberately left untouched.
+     * Responses are handled on virtual threads.
+     *
+     * @return the shared HTTP client
+     */
+    HttpClient httpClient() {
+        return get(HTTP_CLIENT, HttpClient.class, () -> HttpClient.newBuilder()
+                .executor(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("metrics-http-", 1)
+                        .inheritInheritableThreadLocals(false).factory()))
+                .connectTimeout(Duration.ofSeconds(3))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build());
+    }
+
+    private <T> T get(String key, Class<T> type, Supplier<T> factory) {
+        synchronized (resources) {
+            var resource = resources.get(key);
+            if (type.isInstance(resource)) return type.cast(resource);
+            var created = factory.get();
+            resources.put(key, created);
+            return created;
+        }
+    }
+
+    /**
+     * Starts a request once fewer than {@value #MAX_IN_FLIGHT} requests of all class loaders are in flight,
+     * otherwise queues it.
+     *
+     * @param request the request to start
+     * @param reject  run instead of the request if it is dropped from the queue
+     * @see #release()
+     */
+    void dispatch(Runnable request, Runnable reject) {
+        synchronized (resources) {
+            if (inFlight() >= MAX_IN_FLIGHT) {
+                queuedRequests().addLast(Map.entry(request, reject));
+                return;
+            }
+            resources.put(IN_FLIGHT, inFlight() + 1);
+        }
+        request.run();
+    }
+
+    /**
+     * Marks a request as complete and starts the next queued request.
+     * <p>
+     * Once no request is in flight and no hub uses the shared resources anymore, the HTTP client is shut down,
+     * so requests completing after the last instance unregistered do not leave a client behind.
+     */
+    void dispatchNext() {
+        Runnable next;
+        synchronized (resources) {
+            var queued = queuedRequests().pollFirst();
+            next = queued != null ? queued.getKey() : null;
+            if (next == null) {
+                var inFlight = inFlight() - 1;
+                resources.put(IN_FLIGHT, inFlight);
+                if (inFlight == 0 && !isUsed()) releaseHttpClient();
+            }
+        }
+        if (next != null) next.run();
+    }
+
+    private int inFlight() {
+        return resources.get(IN_FLIGHT) instanceof Integer inFlight ? inFlight : 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Deque<Map.Entry<Runnable, Runnable>> queuedRequests() {
+        return (Deque<Map.Entry<Runnable, Runnable>>) resources.computeIfAbsent(QUEUED_REQUESTS, ignored -> new ArrayDeque<Map.Entry<Runnable, Runnable>>());
+    }
+
+    private void releaseHttpClient() {
+        if (resources.remove(HTTP_CLIENT) instanceof HttpClient client) client.shutdown();
+    }
+
+    /**
+     * Compensates a chart pool thread occupied by a chart that timed out but ignores the interrupt,
+     * so stuck charts of one instance do not starve the charts of all others.
+     * At most {@value #MAX_STUCK_CHARTS} threads are compensated.
+     *
+     * @param delta {@code 1} if a chart got stuck, {@code -1} once it returned
+     */
+    void stuckCharts(int delta) {
+        synchronized (resources) {
+            var stuck = stuckCharts() + delta;
+            resources.put(STUCK_CHARTS, stuck);
+            if (!(resources.get(CHARTS) instanceof ThreadPoolExecutor pool)) return;
+            var threads = chartThreads() + Math.min(stuck, MAX_STUCK_CHARTS);
+            if (threads > pool.getMaximumPoolSize()) {
+                pool.setMaximumPoolSize(threads);
+                pool.setCorePoolSize(threads);
+            } else {
+                pool.setCorePoolSize(threads);
+                pool.setMaximumPoolSize(threads);
+            }
+        }
+    }
+
+    private int stuckCharts() {
+        return resources.get(STUCK_CHARTS) instanceof Integer stuck ? stuck : 0;
+    }
+
+    private static int chartThreads() {
+        return Math.clamp(Runtime.getRuntime().availableProcessors(), 1, 4);
+    }
+
+    /**
+     * Adds a member to a batch shared by all class loaders.
+     * <p>
+     * A member is described by a map of JDK types only, see {@link SubmissionBatch}.
+     *
+     * @param key    the key of the batch
+     * @param member the member
+     */
+    void join(String key, Map<String, Object> member) {
+        synchronized (resources) {
+            batches().computeIfAbsent(key, ignored -> new ArrayList<>()).add(member);
+        }
+    }
+
+    /**
+     * Removes a member from a batch shared by all class loaders.
+     *
+     * @param key    the key of the batch
+     * @param member the member
+     */
+    void leave(String key, Map<String, Object> member) {
+        synchronized (resources) {
+            var batches = batches();
+            var members = batches.get(key);
+            if (members == null) return;
+            members.removeIf(candidate -> candidate == member);
+            if (members.isEmpty()) batches.remove(key);
+        }
+    }
+
+    /**
+     * Gets the members of a batch shared by all class loaders, in the order they joined.
+     *
+     * @param key the key of the batch
+     * @return a copy of the members
+     */
+    List<Map<String, Object>> members(String key) {
+        synchronized (resources) {
+            var members = batches().get(key);
+            return members != null ? List.copyOf(members) : List.of();
+        }
+    }
+
+    /**
+     * Removes the batch members of the calling class loader, and members whose class loader was unloaded.
+     */
+    @SuppressWarnings("unchecked")
+    private void leaveBatches() {
+        batches().values().removeIf(members -> {
+            members.removeIf(member -> {
+                var callbacks = ((Reference<Map<String, Object>>) member.get("callbacks")).get();
+                return callbacks == null || isOwn(callbacks.get("data"));
+            });
+            return members.isEmpty();
+        });
+    }
+
+    private static boolean isOwn(Object object) {
+        return object.getClass().getClassLoader() == SharedResources.class.getClassLoader();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, List<Map<String, Object>>> batches() {
+        return (Map<String, List<Map<String, Object>>>) resources.computeIfAbsent(BATCHES, ignored -> new HashMap<String, List<Map<String, Object>>>());
+    }
+}
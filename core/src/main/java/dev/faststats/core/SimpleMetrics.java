@@ -1,20 +1,34 @@
 package dev.faststats.core;
 
 import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdInputStream;
 import com.google.gson.FormattingStyle;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
+import dev.faststats.core.chart.CachedChart;
 import dev.faststats.core.chart.Chart;
+import dev.faststats.core.chart.ChartId;
+import dev.faststats.core.chart.GaugeChart;
+import dev.faststats.core.chart.PrimitiveChart;
 import org.jetbrains.annotations.Async;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.MustBeInvokedByOverriders;
 import org.jetbrains.annotations.VisibleForTesting;
 import org.jspecify.annotations.Nullable;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.net.ConnectException;
 import java.net.URI;
 import java.net.http.HttpClient;
@@ -26,50 +40,130 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public abstract class SimpleMetrics implements Metrics {
-    private final HttpClient httpClient = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(3))
-            .version(HttpClient.Version.HTTP_1_1)
-            .build();
-    private @Nullable ScheduledExecutorService executor = null;
+    private static final Gson GSON = new Gson();
+    private static final Duration MIN_PACING = Duration.ofMinutes(1);
+    private static final Duration MAX_PACING = Duration.ofDays(1);
+    private static final int UNSUPPORTED_MEDIA_TYPE = 415;
+
+    private final SubmissionHub hub = SubmissionHub.shared();
 
     private final Set<Chart<?>> charts;
     private final Config config;
     private final @Token String token;
     private final URI url;
+    private final @Nullable ZstdDictCompress dictionary;
+    private final @Nullable ZstdDictDecompress decompressDictionary;
+    private final long dictionaryId;
+    private final @Nullable DeltaTracker deltas;
+    private final @Nullable Outbox outbox;
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreaker circuitBreaker;
+    private final Duration chartTimeout;
+    private final Duration collectionTimeout;
+    private final boolean batch;
+    private final boolean virtualThreads;
+    private final boolean http2;
+    private volatile PayloadEncoder encoder;
     private final boolean debug;
 
+    private final PipelineStats stats;
+    private final Set<CompletableFuture<?>> inFlight = ConcurrentHashMap.newKeySet();
+    private final Map<Outbox.Entry, ScheduledFuture<?>> pendingRetries = new ConcurrentHashMap<>();
+    private volatile boolean shutdown = false;
+
     @SuppressWarnings("PatternValidation")
     protected SimpleMetrics(SimpleMetrics.Factory<?> factory, Path config) throws IOException, IllegalStateException {
         if (factory.token == null) throw new IllegalStateException("Token must be specified");
 
         this.charts = Set.copyOf(factory.charts);
         this.config = new Config(config);
+        this.dictionary = factory.dictionary != null ? new ZstdDictCompress(factory.dictionary, PayloadCompressor.COMPRESSION_LEVEL) : null;
+        this.decompressDictionary = factory.dictionary != null ? new ZstdDictDecompress(factory.dictionary) : null;
+        this.dictionaryId = factory.dictionary != null ? Zstd.getDictIdFromDict(factory.dictionary) : 0;
+        this.deltas = factory.snapshotInterval > 0 ? new DeltaTracker(factory.snapshotInterval) : null;
+        this.retryPolicy = factory.retryPolicy;
+        this.circuitBreaker = new CircuitBreaker(factory.failureThreshold, factory.openDuration);
+        this.outbox = factory.outboxSize > 0 ? new Outbox(config.resolveSibling("outbox").resolve(factory.token), factory.outboxSize) : null;
+        this.chartTimeout = factory.chartTimeout;
+        this.collectionTimeout = factory.collectionTimeout;
+        this.batch = factory.batch;
+        this.virtualThreads = factory.virtualThreads;
+        this.http2 = factory.http2;
+        this.encoder = factory.encoder;
         this.debug = factory.debug;
         this.token = factory.token;
         this.url = factory.url;
+        this.stats = new PipelineStats(this.charts);
     }
 
     @VisibleForTesting
     protected SimpleMetrics(Config config, Set<Chart<?>> charts, @Token String token, URI url, boolean debug) {
         this.charts = Set.copyOf(charts);
         this.config = config;
+        this.dictionary = null;
+        this.decompressDictionary = null;
+        this.dictionaryId = 0;
+        this.deltas = null;
+        this.outbox = null;
+        this.retryPolicy = RetryPolicy.DEFAULT;
+        this.circuitBreaker = new CircuitBreaker(CircuitBreaker.DEFAULT_FAILURE_THRESHOLD, CircuitBreaker.DEFAULT_OPEN_DURATION);
+        this.chartTimeout = Factory.DEFAULT_CHART_TIMEOUT;
+        this.collectionTimeout = Factory.DEFAULT_COLLECTION_TIMEOUT;
+        this.batch = false;
+        this.virtualThreads = false;
+        this.http2 = false;
+        this.encoder = PayloadEncoder.JSON;
         this.debug = debug;
         this.token = token;
         this.url = url;
+        this.stats = new PipelineStats(this.charts);
     }
 
     @Async.Schedule
     @MustBeInvokedByOverriders
     protected void startSubmitting(int initialDelay, int period, TimeUnit unit) {
+        start(unit.toMillis(initialDelay), unit.toMillis(period));
+    }
+
+    /**
+     * Starts submitting in a slot derived from the server id and token.
+     * <p>
+     * Instead of submitting right away, every server gets a stable phase within the period,
+     * so submissions of a fleet restarted at the same time are spread evenly across the period
+     * while each server keeps its slot across restarts.
+     *
+     * @param period the submission period
+     * @param unit   the time unit
+     * @see #startSubmitting(int, int, TimeUnit)
+     */
+    @Async.Schedule
+    @MustBeInvokedByOverriders
+    protected void startSubmitting(int period, TimeUnit unit) {
+        var periodMillis = unit.toMillis(period);
+        start(slotDelay(config.serverId(), getToken(), periodMillis, System.currentTimeMillis()), periodMillis);
+    }
+
+    private void start(long initialDelay, long period) {
         if (!config.enabled()) {
             warn("Metrics disabled, not starting submission");
             return;
@@ -80,86 +174,622 @@ public abstract class SimpleMetrics implements Metrics {
             return;
         }
 
-        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
-            var thread = new Thread(runnable, "metrics-submitter");
-            thread.setDaemon(true);
-            return thread;
+        info("Starting metrics submission");
+        if (!hub.register(this, initialDelay, period, TimeUnit.MILLISECONDS)) return;
+        shutdown = false;
+        charts.forEach(chart -> {
+            if (chart instanceof GaugeChart gauge) hub.sample(this, gauge);
         });
+    }
 
-        info("Starting metrics submission");
-        executor.scheduleAtFixedRate(this::submitData, initialDelay, period, unit);
+    /**
+     * Computes the delay until the next slot of a server.
+     * <p>
+     * Slots are aligned to the wall clock, so the phase stays the same across restarts.
+     *
+     * @param serverId the server id
+     * @param token    the token
+     * @param period   the submission period in milliseconds
+     * @param now      the current time in epoch milliseconds
+     * @return the delay until the next slot in milliseconds, less than the period
+     */
+    @Contract(pure = true)
+    static long slotDelay(UUID serverId, String token, long period, long now) {
+        if (period <= 0) throw new IllegalArgumentException("Period must be positive: " + period);
+        var hash = serverId.getMostSignificantBits() ^ Long.rotateLeft(serverId.getLeastSignificantBits(), 32);
+        hash = mix(hash ^ token.hashCode());
+        var phase = Math.floorMod(hash, period);
+        return Math.floorMod(phase - now, period);
+    }
+
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
     }
 
     protected boolean isSubmitting() {
-        return executor != null && !executor.isShutdown();
+        return hub.isRegistered(this);
     }
 
-    protected void submitData() {
+    /**
+     * Collects, compresses and sends the metrics of this instance.
+     * <p>
+     * Only collecting and compressing happens on the calling thread,
+     * the request itself is sent asynchronously.
+     *
+     * @return a future completing once the submission finished
+     */
+    protected CompletableFuture<Void> submitData() {
         try {
-            var data = createData().toString();
-            var compressed = Zstd.compress(data.getBytes(StandardCharsets.UTF_8), 6);
-            var request = HttpRequest.newBuilder()
-                    .POST(HttpRequest.BodyPublishers.ofByteArray(compressed))
-                    .header("Content-Encoding", "zstd")
-                    .header("Content-Type", "application/octet-stream")
-                    .header("Authorization", "Bearer " + getToken())
-                    .header("User-Agent", "FastStats Metrics")
-                    .timeout(Duration.ofSeconds(3))
-                    .uri(url)
-                    .build();
+            return send(url, this::writeData, getToken()).thenAccept(statusCode -> {
+                if (deltas != null) deltas.complete(statusCode);
+            });
+        } catch (Exception e) {
+            error("Failed to submit metrics", e);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
 
-            info("Sending metrics to: " + url);
-            info("Uncompressed data: " + data);
-            info("Compressed size: " + compressed.length + " bytes");
-
-            var response = httpClient.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
-            var statusCode = response.statusCode();
-            var body = response.body();
-
-            if (statusCode >= 200 && statusCode < 300) {
-                info("Metrics submitted with status code: " + statusCode + " (" + body + ")");
-            } else if (statusCode >= 300 && statusCode < 400) {
-                warn("Received redirect response from metrics server: " + statusCode + " (" + body + ")");
-            } else if (statusCode >= 400 && statusCode < 500) {
-                error("Submitted invalid request to metrics server: " + statusCode + " (" + body + ")", null);
-            } else if (statusCode >= 500 && statusCode < 600) {
-                error("Received server error response from metrics server: " + statusCode + " (" + body + ")", null);
+    /**
+     * Replays the payloads stored in the outbox, in the order they were stored.
+     * <p>
+     * Replaying stops at the first payload that could not be delivered.
+     *
+     * @return a future completing once replaying finished
+     */
+    private CompletableFuture<Void> replayOutbox() {
+        if (outbox == null || outbox.isEmpty()) return CompletableFuture.completedFuture(null);
+        info("Replaying stored metrics");
+        return outbox.replay(entry -> transmit(entry, true).thenApply(response -> !response.isRetryable()))
+                .handle((replayed, throwable) -> {
+                    if (throwable != null) error("Failed to replay stored metrics", throwable);
+                    else if (!replayed) warn("Metrics server still unavailable, keeping stored metrics");
+                    return null;
+                });
+    }
+
+    /**
+     * Streams the given payload through the compressor and sends it to the metrics server.
+     * <p>
+     * The payload is never materialized as a whole, neither as string nor as byte array.
+     * Compression uses a pooled {@link PayloadCompressor}, reusing its native context and direct buffers.
+     * Stored payloads are replayed before the new payload is sent.
+     * <p>
+     * If the metrics server could not be reached or responded with a server error,
+     * the submission is retried according to the retry policy and finally stored in the outbox to be replayed later.
+     * If the metrics server rejects binary payloads with {@code 415 Unsupported Media Type},
+     * the payload is transcoded and resent as JSON, and all later payloads are encoded as JSON.
+     *
+     * @param url     the url to send the data to
+     * @param payload the payload to write
+     * @param token   the token to authorize with, or null if the payload authorizes itself
+     * @return a future completing with the response status code, or {@code -1} if no response was received
+     */
+    CompletableFuture<Integer> send(URI url, Payload payload, @Nullable @Token String token) {
+        var encoder = this.encoder;
+        var compressor = hub.acquireCompressor();
+        try {
+            compressor.begin(dictionary);
+            var writer = encoder.createWriter(compressor);
+            if (isDebug()) {
+                var data = new StringWriter();
+                payload.write(new JsonWriter(data));
+                info("Uncompressed data: " + data);
+                GSON.toJson(JsonParser.parseString(data.toString()), writer);
             } else {
-                warn("Received unexpected response from metrics server: " + statusCode + " (" + body + ")");
+                payload.write(writer);
             }
+            writer.flush();
+            var compressedSize = compressor.finish();
+            stats.payload(compressor.uncompressedSize(), compressedSize);
 
-        } catch (HttpConnectTimeoutException e) {
-            error("Metrics submission timed out after 3 seconds: " + url, null);
-        } catch (ConnectException e) {
-            error("Failed to connect to metrics server: " + url, null);
+            info("Compressed size: " + compressedSize + " bytes (" + compressor.uncompressedSize() + " bytes uncompressed)");
         } catch (Exception e) {
+            hub.releaseCompressor(compressor);
             error("Failed to submit metrics", e);
+            return CompletableFuture.completedFuture(-1);
+        }
+
+        var submittedAt = Instant.now();
+        return track(replayOutbox()
+                .thenCompose(ignored -> attempt(url, compressor.publisher(), token, encoder.contentType(), dictionaryId, null))
+                .thenCompose(response -> {
+                    var unsupported = isUnsupported(response, encoder.contentType());
+                    if (!response.isRetryable() && !unsupported) return CompletableFuture.completedFuture(response);
+                    var entry = new Outbox.Entry(submittedAt, token == null, encoder.contentType(), dictionaryId, compressor.toByteArray());
+                    if (!unsupported) {
+                        retry(entry, 1, response.retryAfter());
+                        return CompletableFuture.completedFuture(response);
+                    }
+                    fallBackToJson();
+                    return transmit(entry, false).thenApply(resent -> {
+                        if (resent.isRetryable()) retry(entry, 1, resent.retryAfter());
+                        return resent;
+                    });
+                })
+                .thenApply(Response::statusCode)
+                .exceptionally(throwable -> {
+                    error("Failed to submit metrics", throwable);
+                    return -1;
+                })
+                .whenComplete((statusCode, throwable) -> hub.releaseCompressor(compressor)));
+    }
+
+    /**
+     * Schedules the next retry of a failed submission.
+     * <p>
+     * Retries run on the shared scheduler, without blocking it in between.
+     * Once all attempts are used up, the circuit breaker is open or this instance shut down,
+     * the submission is stored in the outbox.
+     * <p>
+     * A {@code Retry-After} delay requested by the metrics server takes precedence over a shorter backoff.
+     *
+     * @param entry      the failed submission
+     * @param retries    the number of retries made so far
+     * @param retryAfter the delay requested by the metrics server, or null
+     */
+    private void retry(Outbox.Entry entry, int retries, @Nullable Duration retryAfter) {
+        if (shutdown || retries >= retryPolicy.maxAttempts() || circuitBreaker.isOpen()) {
+            store(entry);
+            return;
+        }
+        var delay = retryPolicy.delay(retries);
+        if (retryAfter != null) delay = Math.max(delay, retryAfter.toMillis());
+        info("Retrying metrics submission in " + delay + "ms");
+        var scheduleDelay = delay;
+        // scheduled while holding the mapping, so a short retry can not run before it is pending
+        var task = pendingRetries.computeIfAbsent(entry, ignored -> hub.schedule(() -> {
+            if (pendingRetries.remove(entry) == null) return;
+            stats.retry();
+            track(transmit(entry, false).thenAccept(response -> {
+                if (response.isRetryable()) retry(entry, retries + 1, response.retryAfter());
+            }));
+        }, scheduleDelay, TimeUnit.MILLISECONDS));
+        if (task == null) store(entry);
+        else if (shutdown && pendingRetries.remove(entry, task) && task.cancel(false)) store(entry);
+    }
+
+    private void store(Outbox.Entry entry) {
+        if (outbox == null) {
+            stats.dropped(1);
+            return;
+        }
+        try {
+            var evicted = outbox.store(entry);
+            info("Stored metrics for later submission");
+            if (evicted > 0) warn("Outbox is full, dropped " + evicted + " stored submissions");
+            stats.dropped(evicted);
+        } catch (IOException e) {
+            stats.dropped(1);
+            error("Failed to store metrics for later submission", e);
         }
     }
 
+    /**
+     * Sends a stored or failed submission.
+     * <p>
+     * Binary submissions are transcoded to JSON once the metrics server rejected the binary format,
+     * a rejection received while sending one makes the encoder fall back to JSON and sends it again.
+     *
+     * @param entry  the submission to send
+     * @param replay whether the submission is replayed from the outbox
+     * @return a future completing with the response
+     */
+    private CompletableFuture<Response> transmit(Outbox.Entry entry, boolean replay) {
+        if (isBinary(entry.contentType()) && encoder == PayloadEncoder.JSON) {
+            try {
+                entry = transcode(entry);
+            } catch (IOException e) {
+                error("Failed to transcode metrics to JSON, dropping them", e);
+                stats.dropped(1);
+                return CompletableFuture.completedFuture(new Response(UNSUPPORTED_MEDIA_TYPE, null));
+            }
+        }
+        var target = entry.batch() ? batchUrl() : url;
+        var token = entry.batch() ? null : getToken();
+        var body = HttpRequest.BodyPublishers.ofByteArray(entry.payload());
+        var sent = entry;
+        return attempt(target, body, token, entry.contentType(), entry.dictionaryId(), replay ? entry.submittedAt() : null)
+                .thenCompose(response -> {
+                    if (!isUnsupported(response, sent.contentType())) return CompletableFuture.completedFuture(response);
+                    fallBackToJson();
+                    return transmit(sent, replay);
+                });
+    }
+
+    private static boolean isBinary(String contentType) {
+        return contentType.equals(PayloadEncoder.BINARY.contentType());
+    }
+
+    private static boolean isUnsupported(Response response, String contentType) {
+        return response.statusCode() == UNSUPPORTED_MEDIA_TYPE && isBinary(contentType);
+    }
+
+    private void fallBackToJson() {
+        if (encoder == PayloadEncoder.JSON) return;
+        encoder = PayloadEncoder.JSON;
+        warn("Metrics server does not accept binary payloads, falling back to JSON");
+    }
+
+    /**
+     * Transcodes a binary submission to JSON, compressed with the configured dictionary.
+     *
+     * @param entry the binary submission
+     * @return the JSON submission
+     * @throws IOException if the submission can not be decoded
+     */
+    private Outbox.Entry transcode(Outbox.Entry entry) throws IOException {
+        var compressor = hub.acquireCompressor();
+        try (var input = new ZstdInputStream(new ByteArrayInputStream(entry.payload()))) {
+            if (entry.dictionaryId() != 0) {
+                if (decompressDictionary == null || entry.dictionaryId() != dictionaryId) {
+                    throw new IOException("Unknown dictionary: " + Long.toUnsignedString(entry.dictionaryId()));
+                }
+                input.setDict(decompressDictionary);
+            }
+            compressor.begin(dictionary);
+            BinaryPayloadReader.transcode(input, PayloadEncoder.JSON.createWriter(compressor));
+            compressor.finish();
+            return new Outbox.Entry(entry.submittedAt(), entry.batch(), PayloadEncoder.JSON.contentType(), dictionaryId, compressor.toByteArray());
+        } finally {
+            hub.releaseCompressor(compressor);
+        }
+    }
+
+    /**
+     * Attempts to send a compressed body, unless the circuit breaker is open.
+     *
+     * @return a future completing with the response,
+     * with a status code of {@code -1} if no response was received or the attempt was rejected
+     * @see #transmit(URI, HttpRequest.BodyPublisher, String, String, long, Instant)
+     */
+    private CompletableFuture<Response> attempt(URI url, HttpRequest.BodyPublisher body, @Nullable @Token String token, String contentType, long dictionaryId, @Nullable Instant submittedAt) {
+        if (!circuitBreaker.tryAcquire()) {
+            info("Circuit breaker is open, skipping metrics submission");
+            return CompletableFuture.completedFuture(Response.NONE);
+        }
+        return transmit(url, body, token, contentType, dictionaryId, submittedAt).thenApply(response -> {
+            if (circuitBreaker.record(!response.isRetryable())) {
+                warn("Metrics server failed repeatedly, pausing submissions");
+            }
+            return response;
+        });
+    }
+
+    private <T> CompletableFuture<T> track(CompletableFuture<T> future) {
+        inFlight.add(future);
+        future.whenComplete((result, throwable) -> inFlight.remove(future));
+        return future;
+    }
+
+    /**
+     * Sends a compressed body to the metrics server.
+     * <p>
+     * Pacing hints of the metrics server are passed on to the scheduler:
+     * a {@code Retry-After} header on {@code 429} and {@code 503} responses delays the next submission,
+     * a {@code Next-Submit-In} header on successful responses sets the delay until the next submission in seconds.
+     *
+     * @param url          the url to send the body to
+     * @param body         the compressed body
+     * @param token        the token to authorize with, or null if the payload authorizes itself
+     * @param contentType  the content type of the encoded payload
+     * @param dictionaryId the id of the dictionary the body was compressed with, or {@code 0}
+     * @param submittedAt  the time the body was originally submitted if it is being replayed, otherwise null
+     * @return a future completing with the response, with a status code of {@code -1} if no response was received
+     */
+    private CompletableFuture<Response> transmit(URI url, HttpRequest.BodyPublisher body, @Nullable @Token String token, String contentType, long dictionaryId, @Nullable Instant submittedAt) {
+        var builder = HttpRequest.newBuilder()
+                .POST(body)
+                .header("Content-Encoding", "zstd")
+                .header("Content-Type", contentType)
+                .header("User-Agent", "FastStats Metrics")
+                .timeout(Duration.ofSeconds(3))
+                .version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .uri(url);
+        if (token != null) builder.header("Authorization", "Bearer " + token);
+        if (dictionaryId != 0) builder.header("Zstd-Dictionary-Id", Long.toUnsignedString(dictionaryId));
+        if (submittedAt != null) builder.header("Submitted-At", submittedAt.toString());
+        var request = builder.build();
+
+        return hub.dispatch(() -> {
+            info("Sending metrics to: " + url);
+            var start = System.nanoTime();
+            return hub.httpClient().sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                    .thenApply(response -> {
+                        stats.response(response.statusCode(), System.nanoTime() - start);
+                        return response;
+                    });
+        }).handle((response, throwable) -> {
+            if (throwable != null) {
+                stats.failedRequest();
+                var cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+                if (cause instanceof HttpConnectTimeoutException) {
+                    error("Metrics submission timed out after 3 seconds: " + url, null);
+                } else if (cause instanceof ConnectException) {
+                    error("Failed to connect to metrics server: " + url, null);
+                } else {
+                    error("Failed to submit metrics", cause);
+                }
+                return Response.NONE;
+            }
+            return handle(response);
+        });
+    }
+
+    private Response handle(HttpResponse<String> response) {
+        var statusCode = response.statusCode();
+        var responseBody = response.body();
+
+        if (http2 && response.version() != HttpClient.Version.HTTP_2) {
+            info("Metrics server does not support HTTP/2, fell back to " + response.version());
+        }
+
+        if (statusCode >= 200 && statusCode < 300) {
+            info("Metrics submitted with status code: " + statusCode + " (" + responseBody + ")");
+        } else if (statusCode >= 300 && statusCode < 400) {
+            warn("Received redirect response from metrics server: " + statusCode + " (" + responseBody + ")");
+        } else if (statusCode >= 400 && statusCode < 500) {
+            error("Submitted invalid request to metrics server: " + statusCode + " (" + responseBody + ")", null);
+        } else if (statusCode >= 500 && statusCode < 600) {
+            error("Received server error response from metrics server: " + statusCode + " (" + responseBody + ")", null);
+        } else {
+            warn("Received unexpected response from metrics server: " + statusCode + " (" + responseBody + ")");
+        }
+
+        var retryAfter = statusCode == 429 || statusCode == 503
+                ? response.headers().firstValue("Retry-After").flatMap(value -> parseRetryAfter(value, Instant.now())).orElse(null)
+                : null;
+        if (retryAfter != null) {
+            warn("Metrics server asked to retry after " + retryAfter.toSeconds() + " seconds");
+            hub.pace(this, retryAfter, false);
+        } else if (statusCode >= 200 && statusCode < 300) {
+            response.headers().firstValue("Next-Submit-In").flatMap(SimpleMetrics::parseSeconds).ifPresent(delay -> {
+                info("Metrics server asked to submit next in " + delay.toSeconds() + " seconds");
+                hub.pace(this, delay, true);
+            });
+        }
+        return new Response(statusCode, retryAfter);
+    }
+
+    /**
+     * Parses a {@code Retry-After} header, given either in seconds or as HTTP date.
+     *
+     * @param value the header value
+     * @param now   the current time
+     * @return the delay, clamped to at most a day, or empty if the value is malformed
+     */
+    @Contract(pure = true)
+    static Optional<Duration> parseRetryAfter(String value, Instant now) {
+        var seconds = parseSeconds(value);
+        if (seconds.isPresent()) return seconds;
+        try {
+            var date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            var delay = Duration.between(now, date.toInstant());
+            return Optional.of(clamp(delay, Duration.ZERO));
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Parses a delay in seconds, as used by the {@code Retry-After} and {@code Next-Submit-In} headers.
+     *
+     * @param value the header value
+     * @return the delay, clamped to between a minute and a day, or empty if the value is malformed
+     */
+    @Contract(pure = true)
+    static Optional<Duration> parseSeconds(String value) {
+        try {
+            return Optional.of(clamp(Duration.ofSeconds(Long.parseLong(value.trim())), MIN_PACING));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static Duration clamp(Duration delay, Duration min) {
+        if (delay.compareTo(min) < 0) return min;
+        if (delay.compareTo(MAX_PACING) > 0) return MAX_PACING;
+        return delay;
+    }
+
     protected JsonObject createData() {
+        var data = new StringWriter();
+        try {
+            writeData(new JsonWriter(data));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return JsonParser.parseString(data.toString()).getAsJsonObject();
+    }
+
+    /**
+     * Writes the complete payload of this project.
+     * <p>
+     * If {@link Metrics.Factory#incremental(int) incremental submission} is enabled,
+     * only the values that changed since the last acknowledged submission are written.
+     *
+     * @param writer the writer to write to
+     * @throws IOException if an I/O error occurs
+     */
+    final void writeData(JsonWriter writer) throws IOException {
+        var serverData = createServerData();
+        var defaultData = createDefaultData();
+
+        if (deltas != null) {
+            var data = new LinkedHashMap<String, JsonElement>();
+            createHostData(serverData).asMap().forEach(data::put);
+            createChartData().asMap().forEach(data::put);
+            defaultData.asMap().forEach(data::put);
+            deltas.write(writer, config.serverId(), data);
+            return;
+        }
+
+        writer.beginObject();
+        writer.name("server_id").value(config.serverId().toString());
+        writer.name("data").beginObject();
+        writeHostData(writer, serverData);
+        writeProjectData(writer, defaultData);
+        writer.endObject();
+        writer.endObject();
+    }
+
+    @Contract(value = " -> new", pure = true)
+    final JsonObject createServerData() {
+        var serverData = new JsonObject();
+        appendServerData(serverData);
+        return serverData;
+    }
+
+    @Contract(value = " -> new", pure = true)
+    final JsonObject createDefaultData() {
+        var defaultData = new JsonObject();
+        appendDefaultData(defaultData);
+        return defaultData;
+    }
+
+    /**
+     * Computes the data of all charts as JSON tree, in chart order.
+     *
+     * @return the chart data by chart id
+     * @throws IOException if an I/O error occurs
+     * @see #computeChartData(ChartDataConsumer, JsonWriter)
+     */
+    @Contract(" -> new")
+    final JsonObject createChartData() throws IOException {
         var data = new JsonObject();
-        var charts = new JsonObject();
+        computeChartData(data::add, null);
+        return data;
+    }
+
+    @Contract(value = "_ -> new", pure = true)
+    private JsonObject createHostData(JsonObject serverData) {
+        var hostData = new JsonObject();
+        hostData.addProperty("java_version", System.getProperty("java.version"));
+        hostData.addProperty("os_arch", System.getProperty("os.arch"));
+        hostData.addProperty("os_name", System.getProperty("os.name"));
+        hostData.addProperty("os_version", System.getProperty("os.version"));
+        hostData.addProperty("core_count", Runtime.getRuntime().availableProcessors());
+        serverData.asMap().forEach(hostData::add);
+        return hostData;
+    }
+
+    /**
+     * Writes the data shared by all projects running on this server.
+     *
+     * @param writer     the writer to write to
+     * @param serverData the data created by {@link #appendServerData(JsonObject)}
+     * @throws IOException if an I/O error occurs
+     */
+    final void writeHostData(JsonWriter writer, JsonObject serverData) throws IOException {
+        writeEntries(writer, createHostData(serverData));
+    }
+
+    /**
+     * Writes the data specific to this project.
+     *
+     * @param writer      the writer to write to
+     * @param defaultData the data created by {@link #appendDefaultData(JsonObject)}
+     * @throws IOException if an I/O error occurs
+     */
+    final void writeProjectData(JsonWriter writer, JsonObject defaultData) throws IOException {
+        computeChartData((id, data) -> GSON.toJson(data, writer.name(id)), writer);
+        writeEntries(writer, defaultData);
+    }
 
-        charts.addProperty("java_version", System.getProperty("java.version"));
-        charts.addProperty("os_arch", System.getProperty("os.arch"));
-        charts.addProperty("os_name", System.getProperty("os.name"));
-        charts.addProperty("os_version", System.getProperty("os.version"));
-        charts.addProperty("core_count", Runtime.getRuntime().availableProcessors());
+    /**
+     * Computes the data of all charts and passes it to the given consumer in chart order.
+     * <p>
+     * Charts are computed in parallel.
+     * Charts that fail or miss either the chart timeout or the collection timeout are left out,
+     * the chart timeout counts from the moment the chart starts computing.
+     * {@link CachedChart Cached charts} recompute expired data on the chart executor as well.
+     * <p>
+     * If a writer is given, {@link PrimitiveChart primitive charts} are written to it directly instead,
+     * without boxing their values.
+     *
+     * @param consumer the consumer to pass the chart data to
+     * @param writer   the writer to write primitive charts to, or null to pass them to the consumer as well
+     * @throws IOException if the consumer fails
+     */
+    private void computeChartData(ChartDataConsumer consumer, @Nullable JsonWriter writer) throws IOException {
+        var deadline = System.nanoTime() + collectionTimeout.toNanos();
+        var timeout = chartTimeout.toNanos();
 
+        var executor = virtualThreads ? hub.virtualExecutor() : hub.chartExecutor();
+        var futures = new LinkedHashMap<Chart<?>, @Nullable ChartTask<Optional<JsonElement>>>(this.charts.size());
         this.charts.forEach(chart -> {
-            try {
-                chart.getData().ifPresent(chartData -> charts.add(chart.getId(), chartData));
-            } catch (Exception e) {
-                error("Failed to build chart data: " + chart.getId(), e);
+            if (writer != null && chart instanceof PrimitiveChart<?>) {
+                futures.put(chart, null);
+                return;
             }
+            Callable<Optional<JsonElement>> data = chart instanceof CachedChart<?> cached
+                    ? () -> cached.getData(executor, this::error)
+                    : chart::getData;
+            var task = new ChartTask<>(() -> stats.compute(chart, data), virtualThreads ? null : hub);
+            executor.execute(task);
+            futures.put(chart, task);
         });
-        
-        appendDefaultData(charts);
 
-        data.addProperty("server_id", config.serverId().toString());
-        data.add("data", charts);
-        return data;
+        for (var entry : futures.entrySet()) {
+            var chart = entry.getKey();
+            var future = entry.getValue();
+            if (future == null) {
+                try {
+                    if (!stats.compute(chart, () -> ((PrimitiveChart<?>) chart).writeData(writer))) {
+                        warn("Chart data is not finite, skipping: " + chart.getId());
+                    }
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
+                    stats.chartFailure(chart);
+                    error("Failed to build chart data: " + chart.getId(), e);
+                }
+                continue;
+            }
+            try {
+                var chartData = future.await(timeout, deadline);
+                if (chartData.isEmpty()) continue;
+                if (!isFinite(chartData.get())) {
+                    warn("Chart data is not finite, skipping: " + chart.getId());
+                    continue;
+                }
+                consumer.accept(chart.getId(), chartData.get());
+            } catch (TimeoutException e) {
+                future.abandon();
+                stats.chartTimeout(chart);
+                warn("Chart data timed out, skipping: " + chart.getId());
+            } catch (ExecutionException e) {
+                stats.chartFailure(chart);
+                error("Failed to build chart data: " + chart.getId(), e.getCause());
+            } catch (InterruptedException e) {
+                future.cancel(true);
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Checks whether the given chart data only contains finite numbers, which are the only numbers JSON can represent.
+     *
+     * @param data the chart data
+     * @return true if all numbers are finite
+     */
+    private static boolean isFinite(JsonElement data) {
+        if (data instanceof JsonPrimitive primitive) {
+            return !primitive.isNumber() || Double.isFinite(primitive.getAsDouble());
+        } else if (data instanceof JsonArray array) {
+            for (var element : array) if (!isFinite(element)) return false;
+        } else if (data instanceof JsonObject object) {
+            for (var element : object.asMap().values()) if (!isFinite(element)) return false;
+        }
+        return true;
+    }
+
+    private static void writeEntries(JsonWriter writer, JsonObject object) throws IOException {
+        for (var entry : object.entrySet()) {
+            GSON.toJson(entry.getValue(), writer.name(entry.getKey()));
+        }
     }
 
     @Override
@@ -172,10 +802,38 @@ public abstract class SimpleMetrics implements Metrics {
         return config;
     }
 
+    @Override
+    public Metrics.Stats stats() {
+        return stats.snapshot();
+    }
+
+    SubmissionBatch.Key batchKey() {
+        return new SubmissionBatch.Key(config.serverId(), url, encoder.contentType(), dictionaryId, http2, retryPolicy, outbox != null);
+    }
+
+    Duration collectionTimeout() {
+        return collectionTimeout;
+    }
+
+    URI batchUrl() {
+        return URI.create(url + "/batch");
+    }
+
+    boolean isBatched() {
+        return batch;
+    }
+
+    boolean isVirtual() {
+        return virtualThreads;
+    }
+
     protected boolean isDebug() {
         return debug || config.debug();
     }
 
+    @Contract(mutates = "param1")
+    protected abstract void appendServerData(JsonObject charts);
+
     @Contract(mutates = "param1")
     protected abstract void appendDefaultData(JsonObject charts);
 
@@ -186,17 +844,69 @@ public abstract class SimpleMetrics implements Metrics {
     protected abstract void info(String message);
 
     @Override
-    public void shutdown() {
+    public CompletableFuture<Void> shutdown() {
         info("Shutting down metrics submission");
-        if (executor == null) return;
-        executor.shutdown();
-        executor = null;
+        shutdown = true;
+        hub.unregister(this);
+        pendingRetries.forEach((entry, task) -> {
+            if (pendingRetries.remove(entry, task) && task.cancel(false)) store(entry);
+        });
+        return CompletableFuture.allOf(inFlight.toArray(CompletableFuture<?>[]::new));
+    }
+
+    /**
+     * The response of the metrics server.
+     *
+     * @param statusCode the response status code, or {@code -1} if no response was received
+     * @param retryAfter the delay requested by the metrics server before retrying, or null
+     */
+    record Response(int statusCode, @Nullable Duration retryAfter) {
+        static final Response NONE = new Response(-1, null);
+
+        /**
+         * Whether the submission failed in a way that may succeed later.
+         *
+         * @return true if the submission should be retried
+         */
+        @Contract(pure = true)
+        boolean isRetryable() {
+            return statusCode == -1 || statusCode == 429 || statusCode >= 500;
+        }
+    }
+
+    /**
+     * A payload written to the compressed request body.
+     */
+    @FunctionalInterface
+    interface Payload {
+        void write(JsonWriter writer) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ChartDataConsumer {
+        void accept(@ChartId String id, JsonElement data) throws IOException;
     }
 
     public abstract static class Factory<T> implements Metrics.Factory<T> {
+        private static final Duration DEFAULT_CHART_TIMEOUT = Duration.ofSeconds(5);
+        private static final Duration DEFAULT_COLLECTION_TIMEOUT = Duration.ofSeconds(10);
+        private static final long DEFAULT_OUTBOX_SIZE = 256 * 1024;
+
         private final Set<Chart<?>> charts = new HashSet<>(0);
         private URI url = URI.create("https://metrics.faststats.dev/v1/collect");
         private @Nullable String token;
+        private byte @Nullable [] dictionary;
+        private Duration chartTimeout = DEFAULT_CHART_TIMEOUT;
+        private Duration collectionTimeout = DEFAULT_COLLECTION_TIMEOUT;
+        private RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+        private int failureThreshold = CircuitBreaker.DEFAULT_FAILURE_THRESHOLD;
+        private Duration openDuration = CircuitBreaker.DEFAULT_OPEN_DURATION;
+        private long outboxSize = DEFAULT_OUTBOX_SIZE;
+        private int snapshotInterval = 0;
+        private boolean batch = false;
+        private boolean virtualThreads = false;
+        private boolean http2 = false;
+        private PayloadEncoder encoder = PayloadEncoder.JSON;
         private boolean debug = false;
 
         @Override
@@ -205,6 +915,85 @@ public abstract class SimpleMetrics implements Metrics {
             return this;
         }
 
+        @Override
+        public Metrics.Factory<T> chartTimeout(Duration timeout) throws IllegalArgumentException {
+            if (!timeout.isPositive()) throw new IllegalArgumentException("Chart timeout must be positive: " + timeout);
+            this.chartTimeout = timeout;
+            return this;
+        }
+
+        @Override
+        public Metrics.Factory<T> collectionTimeout(Duration timeout) throws IllegalArgumentException {
+            if (!timeout.isPositive()) throw new IllegalArgumentException("Collection timeout must be positive: " + timeout);
+            this.collectionTimeout = timeout;
+            return this;
+        }
+
+        @Override
+        public Metrics.Factory<T> dictionary(byte[] dictionary) throws IllegalArgumentException {
+            if (Zstd.getDictIdFromDict(dictionary) == 0) {
+                throw new IllegalArgumentException("Dictionary has no id, only trained zstd dictionaries are supported");
+            }
+            this.dictionary = dictionary.clone();
+            return this;
+        }
+
+        @Override
+        public Metrics.Factory<T> incremental(int snapshotInterval) throws IllegalArgumentException {
+            if (snapshotInterval < 0) throw new IllegalArgumentException("Snapshot interval must not be negative: " + snapshotInterval);
+            this.snapshotInterval = snapshotInterval;
+            return this;
+        }
+
+        @Override
+        public Metrics.Factory<T> retry(int maxAttempts, Duration baseDelay, Duration maxDelay) throws IllegalArgumentException {
+            if (maxAttempts < 1) throw new IllegalArgumentException("Max attempts must be at least 1: " + maxAttempts);
+            if (baseDelay.isNegative()) throw new IllegalArgumentException("Base delay must not be negative: " + baseDelay);
+            if (maxDelay.compareTo(baseDelay) < 0) throw new IllegalArgumentException("Max delay must not be less than the base delay: " + maxDelay);
+            this.retryPolicy = new RetryPolicy(maxAttempts, baseDelay, maxDelay);
+            return this;
+        }
+
+        @Override
+        public Metrics.Factory<T> circuitBreaker(int failureThreshold, Duration openDuration) throws IllegalArgumentException {
+            if (failureThreshold < 1) throw new IllegalArgumentException("Failure threshold must be at least 1: " + failureThreshold);
+            if (!openDuration.isPositive()) throw new IllegalArgumentException("Open duration must be positive: " + openDuration);
+            this.failureThreshold = failureThreshold;
+            this.openDuration = openDuration;
+            return this;
+        }
+
+        @Override
+        public Metrics.Factory<T> outboxSize(long bytes) throws IllegalArgumentException {
+            if (bytes < 0) throw new IllegalArgumentException("Outbox size must not be negative: " + bytes);
+            this.outboxSize = bytes;
+            return this;
+        }
+
+        @Override
+        public Metrics.Factory<T> batch(boolean enabled) {
+            this.batch = enabled;
+            return this;
+        }
+
+        @Override
+        public Metrics.Factory<T> virtualThreads(boolean enabled) {
+            this.virtualThreads = enabled;
+            return this;
+        }
+
+        @Override
+        public Metrics.Factory<T> http2(boolean enabled) {
+            this.http2 = enabled;
+            return this;
+        }
+
+        @Override
+        public Metrics.Factory<T> encoder(PayloadEncoder encoder) {
+            this.encoder = encoder;
+            return this;
+        }
+
         @Override
         public Metrics.Factory<T> debug(boolean enabled) {
             this.debug = enabled;
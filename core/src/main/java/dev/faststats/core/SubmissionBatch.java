@@ -0,0 +1,239 @@
+package dev.faststats.core;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import org.jetbrains.annotations.Contract;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.ref.WeakReference;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+
+/**
+ * A group of batched metrics instances with compatible settings, see {@link Key}.
+ * <p>
+ * All members are submitted in a single request, containing the server data only once:
+ * <pre>{@code
+ * {
+ *   "server_id": "...",
+ *   "data": { ...server data... },
+ *   "projects": [
+ *     { "token": "...", "data": { ...project data... } }
+ *   ]
+ * }
+ * }</pre>
+ * The members are {@link SharedResources shared} across class loaders, so plugins shading their own copy
+ * of this library are batched together as well.
+ * Every member is described by a map of JDK types only:
+ * <pre>
+ * token     String                                   the token of the project
+ * callbacks WeakReference&lt;Map&lt;String, Object&gt;&gt;      the callbacks of the project
+ *   data    Callable&lt;String&gt;                         the project data as JSON object
+ *   error   BiConsumer&lt;String, Throwable&gt;            logs an error of the project
+ * </pre>
+ * The callbacks are only strongly reachable from the batch of their own class loader,
+ * so a plugin unloaded without shutting down its metrics is not kept alive by other plugins,
+ * its members are dropped once their callbacks are collected.
+ * <p>
+ * The first member acts as the leader, providing the server data, sending the request and logging the submission.
+ * The project data of all members is collected in parallel on virtual threads,
+ * members missing the {@link Metrics.Factory#collectionTimeout(Duration) collection timeout} of the leader are left out.
+ * The batch of every class loader is scheduled with the timing of its first member,
+ * but only the batch containing the leader submits, so once the leader leaves, the next member takes over.
+ */
+final class SubmissionBatch {
+    private static final Gson GSON = new Gson();
+
+    private final Map<SimpleMetrics, Member> members = new LinkedHashMap<>();
+    private final SubmissionHub hub;
+    private final SharedResources shared;
+    private final Key key;
+
+    SubmissionBatch(Key key, SubmissionHub hub, SharedResources shared) {
+        this.key = key;
+        this.hub = hub;
+        this.shared = shared;
+    }
+
+    synchronized boolean add(SimpleMetrics metrics) {
+        if (members.containsKey(metrics)) return false;
+        var callbacks = Map.<String, Object>of(
+                "data", (Callable<String>) () -> projectData(metrics),
+                "error", (BiConsumer<String, Throwable>) metrics::error
+        );
+        var member = new Member(Map.of("token", metrics.getToken(), "callbacks", new WeakReference<>(callbacks)), callbacks);
+        members.put(metrics, member);
+        shared.join(key.id(), member.shared());
+        return true;
+    }
+
+    synchronized boolean remove(SimpleMetrics metrics) {
+        var member = members.remove(metrics);
+        if (member == null) return false;
+        shared.leave(key.id(), member.shared());
+        return true;
+    }
+
+    synchronized boolean contains(SimpleMetrics metrics) {
+        return members.containsKey(metrics);
+    }
+
+    synchronized boolean isEmpty() {
+        return members.isEmpty();
+    }
+
+    private synchronized Map<Map<String, Object>, SimpleMetrics> local() {
+        var local = new IdentityHashMap<Map<String, Object>, SimpleMetrics>(members.size());
+        members.forEach((metrics, member) -> local.put(member.shared(), metrics));
+        return local;
+    }
+
+    void submit() {
+        var members = shared.members(key.id());
+        if (members.isEmpty()) return;
+        var leader = local().get(members.getFirst());
+        if (leader == null) return;
+        try {
+            var projects = collect(leader, members);
+            leader.info("Submitting batched metrics for " + projects.size() + " projects");
+            var serverData = leader.createServerData();
+            leader.send(leader.batchUrl(), writer -> writeData(writer, leader, serverData, projects), null);
+        } catch (Exception e) {
+            leader.error("Failed to submit batched metrics", e);
+        }
+    }
+
+    /**
+     * Collects the project data of all members in parallel.
+     * <p>
+     * Members whose data can not be collected within the collection timeout of the leader are left out.
+     *
+     * @param leader  the leader
+     * @param members the members
+     * @return the tokens and project data of the members, in member order
+     * @throws InterruptedException if the current thread was interrupted while waiting
+     */
+    @SuppressWarnings("unchecked")
+    private List<Map.Entry<String, String>> collect(SimpleMetrics leader, List<Map<String, Object>> members) throws InterruptedException {
+        var timeout = leader.collectionTimeout().toNanos();
+        var deadline = System.nanoTime() + timeout;
+        var executor = hub.virtualExecutor();
+        var tasks = new LinkedHashMap<Map<String, Object>, ChartTask<String>>(members.size());
+        for (var member : members) {
+            var callbacks = ((WeakReference<Map<String, Object>>) member.get("callbacks")).get();
+            if (callbacks == null) {
+                // the class loader of the member was unloaded without shutting down
+                shared.leave(key.id(), member);
+                continue;
+            }
+            var task = new ChartTask<>((Callable<String>) callbacks.get("data"), null);
+            executor.execute(task);
+            tasks.put(member, task);
+        }
+
+        var projects = new ArrayList<Map.Entry<String, String>>(tasks.size());
+        for (var entry : tasks.entrySet()) {
+            var token = (String) entry.getKey().get("token");
+            var task = entry.getValue();
+            try {
+                projects.add(Map.entry(token, task.await(timeout, deadline)));
+            } catch (TimeoutException e) {
+                task.abandon();
+                leader.warn("Batched project data timed out, skipping: " + token);
+            } catch (ExecutionException e) {
+                var callbacks = ((WeakReference<Map<String, Object>>) entry.getKey().get("callbacks")).get();
+                if (callbacks != null) {
+                    ((BiConsumer<String, Throwable>) callbacks.get("error")).accept("Failed to build batched project data", e.getCause());
+                }
+            } catch (InterruptedException e) {
+                tasks.values().forEach(ChartTask::abandon);
+                throw e;
+            }
+        }
+        return projects;
+    }
+
+    private void writeData(JsonWriter writer, SimpleMetrics leader, JsonObject serverData, List<Map.Entry<String, String>> projects) throws IOException {
+        writer.beginObject();
+        writer.name("server_id").value(key.serverId().toString());
+        writer.name("data").beginObject();
+        leader.writeHostData(writer, serverData);
+        writer.endObject();
+        writer.name("projects").beginArray();
+        for (var project : projects) {
+            writer.beginObject();
+            writer.name("token").value(project.getKey());
+            GSON.toJson(JsonParser.parseString(project.getValue()), writer.name("data"));
+            writer.endObject();
+        }
+        writer.endArray();
+        writer.endObject();
+    }
+
+    /**
+     * Writes the project data of a member as JSON object.
+     */
+    private static String projectData(SimpleMetrics metrics) throws IOException {
+        var data = new StringWriter();
+        var writer = new JsonWriter(data);
+        writer.beginObject();
+        metrics.writeProjectData(writer, metrics.createDefaultData());
+        writer.endObject();
+        writer.flush();
+        return data.toString();
+    }
+
+    /**
+     * A member of this class loader.
+     *
+     * @param shared    the member description shared with other class loaders
+     * @param callbacks the callbacks, strongly held by this class loader only
+     */
+    private record Member(Map<String, Object> shared, Map<String, Object> callbacks) {
+    }
+
+    /**
+     * The settings batched instances must share.
+     * <p>
+     * Besides the server id and the metrics server URL, the batch is encoded, compressed, sent and retried
+     * with the settings of its leader, so only instances agreeing on them are batched together.
+     *
+     * @param serverId     the server id
+     * @param url          the metrics server URL
+     * @param contentType  the content type of the encoder
+     * @param dictionaryId the id of the compression dictionary, or {@code 0}
+     * @param http2        whether HTTP/2 is used
+     * @param retryPolicy  the retry policy
+     * @param outbox       whether failed submissions are stored in an outbox
+     */
+    record Key(UUID serverId, URI url, String contentType, long dictionaryId, boolean http2, RetryPolicy retryPolicy, boolean outbox) {
+        /**
+         * Identifies the batch across class loaders.
+         *
+         * @return the batch id
+         */
+        @Contract(pure = true)
+        String id() {
+            return String.join(" ", serverId.toString(), url.toString(), contentType, Long.toUnsignedString(dictionaryId),
+                    Boolean.toString(http2), Integer.toString(retryPolicy.maxAttempts()), millis(retryPolicy.baseDelay()),
+                    millis(retryPolicy.maxDelay()), Boolean.toString(outbox));
+        }
+
+        private static String millis(Duration duration) {
+            return Long.toString(duration.toMillis());
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package dev.faststats.core;
+
+import dev.faststats.core.chart.GaugeChart;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.Nullable;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * The submission hub shared by all metrics instances.
+ * <p>
+ * The hub uses a single scheduler thread, a single collector thread, a single pooled {@link HttpClient},
+ * a small bounded pool for chart computation and a pool of reusable {@link PayloadCompressor compressors},
+ * so the number of threads and connections stays the same regardless of how many instances are registered.
+ * Requests are sent asynchronously, so the scheduler thread never waits for the network,
+ * and only a few requests are in flight at once, further requests are queued.
+ * All of them are created when first needed and released once the last instance unregisters,
+ * the HTTP client only once the last request completed.
+ * The chart pool threads additionally time out while idle,
+ * and threads occupied by charts that timed out but keep running are {@link #chartStuck() compensated}.
+ * <p>
+ * The scheduler thread only acts as timer, submissions are collected and compressed and gauges are sampled
+ * on the collector thread.
+ * Instances using {@link SimpleMetrics#isVirtual() virtual threads} run their submissions, samples and charts
+ * on virtual threads instead.
+ * <p>
+ * {@link SimpleMetrics#isBatched() Batched} instances are grouped into a {@link SubmissionBatch} per server id,
+ * metrics server URL and compatible settings, which is scheduled once using the timing of its first member.
+ * <p>
+ * Submissions reschedule themselves after every run, relative to the time they were planned for,
+ * so the phase does not drift by the duration of the submissions.
+ * This also allows the metrics server to {@link #pace(SimpleMetrics, Duration, boolean) pace} the next submission.
+ * <p>
+ * The hub is shared by all instances loaded by the same class loader.
+ * The threads, the HTTP client and the request queue are {@link SharedResources shared} with the hubs of other class loaders,
+ * so plugins shading their own copy of this library still share them.
+ */
+final class SubmissionHub {
+    private static final SubmissionHub SHARED = new SubmissionHub();
+    private static final int MAX_POOLED_COMPRESSORS = 4;
+
+    private final Map<SimpleMetrics, Schedule> tasks = new HashMap<>();
+    private final Map<SubmissionBatch.Key, SubmissionBatch> batches = new HashMap<>();
+    private final Map<SubmissionBatch, Schedule> batchTasks = new HashMap<>();
+    private final Map<SimpleMetrics, List<ScheduledFuture<?>>> samplers = new HashMap<>();
+    private final SharedResources shared = SharedResources.lookup();
+    private final Deque<PayloadCompressor> compressors = new ArrayDeque<>(MAX_POOLED_COMPRESSORS);
+    private @Nullable ScheduledExecutorService scheduler = null;
+
+    private SubmissionHub() {
+    }
+
+    @Contract(pure = true)
+    static SubmissionHub shared() {
+        return SHARED;
+    }
+
+    /**
+     * Registers a metrics instance and schedules its submission.
+     *
+     * @param metrics      the metrics instance
+     * @param initialDelay the initial delay
+     * @param period       the submission period
+     * @param unit         the time unit
+     * @return true if the instance was registered, false if it already was
+     */
+    synchronized boolean register(SimpleMetrics metrics, long initialDelay, long period, TimeUnit unit) {
+        if (isRegistered(metrics)) return false;
+        if (scheduler == null) {
+            shared.acquire();
+            scheduler = shared.scheduler();
+        }
+
+        if (metrics.isBatched()) {
+            var batch = batches.computeIfAbsent(metrics.batchKey(), key -> new SubmissionBatch(key, this, shared));
+            if (!batchTasks.containsKey(batch)) {
+                batchTasks.put(batch, new Schedule(batch::submit, metrics.isVirtual(), unit.toNanos(period), unit.toNanos(initialDelay)));
+            }
+            return batch.add(metrics);
+        }
+
+        tasks.put(metrics, new Schedule(metrics::submitData, metrics.isVirtual(), unit.toNanos(period), unit.toNanos(initialDelay)));
+        return true;
+    }
+
+    /**
+     * Unregisters a metrics instance and cancels its submission.
+     * <p>
+     * The shared resources are released once no instances remain.
+     *
+     * @param metrics the metrics instance
+     */
+    synchronized void unregister(SimpleMetrics metrics) {
+        var task = tasks.remove(metrics);
+        if (task != null) task.cancel();
+        var sampling = samplers.remove(metrics);
+        if (sampling != null) sampling.forEach(sampler -> sampler.cancel(false));
+
+        batches.values().removeIf(batch -> {
+            if (!batch.remove(metrics) || !batch.isEmpty()) return false;
+            var batchTask = batchTasks.remove(batch);
+            if (batchTask != null) batchTask.cancel();
+            return true;
+        });
+
+        if (!tasks.isEmpty() || !batches.isEmpty() || scheduler == null) return;
+
+        shared.release();
+        compressors.forEach(PayloadCompressor::free);
+        compressors.clear();
+        scheduler = null;
+    }
+
+    /**
+     * Schedules a one-off task on the shared scheduler.
+     *
+     * @param task  the task
+     * @param delay the delay
+     * @param unit  the time unit
+     * @return the scheduled task, or null if the hub is not running
+     */
+    synchronized @Nullable ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        if (scheduler == null) return null;
+        return scheduler.schedule(task, delay, unit);
+    }
+
+    /**
+     * Samples a gauge chart of a registered metrics instance at its interval, until the instance unregisters.
+     * <p>
+     * Like submissions, samples are only triggered by the scheduler and taken on the collector or a virtual thread.
+     * A sample is skipped while the previous one is still being taken.
+     *
+     * @param metrics the metrics instance
+     * @param gauge   the gauge chart
+     */
+    synchronized void sample(SimpleMetrics metrics, GaugeChart gauge) {
+        if (!isRegistered(metrics)) return;
+        var interval = gauge.interval().toNanos();
+        var sampling = new AtomicBoolean();
+        var sampler = shared.scheduler().scheduleAtFixedRate(() -> {
+            if (!sampling.compareAndSet(false, true)) return;
+            try {
+                executor(metrics.isVirtual()).execute(() -> {
+                    try {
+                        gauge.sample();
+                    } catch (Exception e) {
+                        metrics.error("Failed to sample gauge chart: " + gauge.getId(), e);
+                    } finally {
+                        sampling.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                sampling.set(false);
+            }
+        }, interval, interval, TimeUnit.NANOSECONDS);
+        samplers.computeIfAbsent(metrics, k -> new ArrayList<>()).add(sampler);
+    }
+
+    /**
+     * Paces the next periodic submission of a metrics instance, or of the batch it belongs to.
+     *
+     * @param metrics the metrics instance
+     * @param delay   the delay until the next submission
+     * @param exact   whether the next submission should happen exactly after the delay,
+     *                or only not earlier than the delay
+     */
+    synchronized void pace(SimpleMetrics metrics, Duration delay, boolean exact) {
+        var schedule = tasks.get(metrics);
+        if (schedule == null) for (var entry : batchTasks.entrySet()) {
+            if (entry.getKey().contains(metrics)) schedule = entry.getValue();
+        }
+        if (schedule != null) schedule.pace(delay.toNanos(), exact);
+    }
+
+    /**
+     * Dispatches an asynchronous request once the {@link SharedResources#dispatch(Runnable, Runnable) shared request queue} allows it.
+     * <p>
+     * Requests still queued when the hub releases the shared resources are dropped,
+     * completing the future exceptionally.
+     *
+     * @param request the request to start
+     * @param <T>     the response type
+     * @return a future completing with the response of the request
+     */
+    <T> CompletableFuture<T> dispatch(Supplier<CompletableFuture<T>> request) {
+        var result = new CompletableFuture<T>();
+        shared.dispatch(() -> {
+            try {
+                request.get().whenComplete((response, throwable) -> {
+                    shared.dispatchNext();
+                    if (throwable != null) result.completeExceptionally(throwable);
+                    else result.complete(response);
+                });
+            } catch (Throwable throwable) {
+                shared.dispatchNext();
+                result.completeExceptionally(throwable);
+            }
+        }, () -> result.completeExceptionally(new CancellationException("Metrics submission stopped")));
+        return result;
+    }
+
+    synchronized boolean isRegistered(SimpleMetrics metrics) {
+        return tasks.containsKey(metrics) || batches.values().stream().anyMatch(batch -> batch.contains(metrics));
+    }
+
+    /**
+     * Returns the HTTP client shared by all instances.
+     *
+     * @return the shared HTTP client
+     * @see SharedResources#httpClient()
+     */
+    HttpClient httpClient() {
+        return shared.httpClient();
+    }
+
+    synchronized PayloadCompressor acquireCompressor() {
+        var compressor = compressors.pollFirst();
+        return compressor != null ? compressor : new PayloadCompressor();
+    }
+
+    synchronized void releaseCompressor(PayloadCompressor compressor) {
+        if (scheduler == null || compressors.size() >= MAX_POOLED_COMPRESSORS) compressor.free();
+        else compressors.addFirst(compressor);
+    }
+
+    ExecutorService chartExecutor() {
+        return shared.chartExecutor();
+    }
+
+    /**
+     * Compensates a chart pool thread occupied by a chart that timed out but ignores the interrupt.
+     *
+     * @see SharedResources#stuckCharts(int)
+     * @see #chartReleased()
+     */
+    void chartStuck() {
+        shared.stuckCharts(1);
+    }
+
+    /**
+     * Releases the compensation of a stuck chart once it returned.
+     *
+     * @see #chartStuck()
+     */
+    void chartReleased() {
+        shared.stuckCharts(-1);
+    }
+
+    ExecutorService virtualExecutor() {
+        return shared.virtualExecutor();
+    }
+
+    private Executor executor(boolean virtual) {
+        return virtual ? shared.virtualExecutor() : shared.collectorExecutor();
+    }
+
+    /**
+     * A periodic submission, rescheduling itself after every run.
+     * <p>
+     * The scheduler only triggers the submission, which then runs on the collector or a virtual thread.
+     * The executor is looked up for every run, as the shared pools are replaced when a class loader releases them.
+     * The next run is planned one period after the previous planned run, not after the previous run completed,
+     * runs missed because a submission took longer than the period are skipped.
+     * A paced run starts a new phase.
+     */
+    private final class Schedule implements Runnable {
+        private final Runnable action;
+        private final boolean virtual;
+        private final long period;
+        private @Nullable ScheduledFuture<?> future;
+        private long nextRun;
+        private long pacedDelay = -1;
+        private boolean running = false;
+        private boolean cancelled = false;
+
+        private Schedule(Runnable action, boolean virtual, long period, long initialDelay) {
+            this.action = action;
+            this.virtual = virtual;
+            this.period = period;
+            this.nextRun = System.nanoTime() + initialDelay;
+            this.future = shared.scheduler().schedule(this, initialDelay, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void run() {
+            synchronized (SubmissionHub.this) {
+                if (cancelled) return;
+                running = true;
+            }
+            try {
+                executor(virtual).execute(this::submit);
+            } catch (RejectedExecutionException e) {
+                synchronized (SubmissionHub.this) {
+                    running = false;
+                }
+            }
+        }
+
+        private void submit() {
+            try {
+                action.run();
+            } finally {
+                synchronized (SubmissionHub.this) {
+                    running = false;
+                    if (!cancelled && scheduler != null) {
+                        var now = System.nanoTime();
+                        if (pacedDelay >= 0) {
+                            nextRun = now + pacedDelay;
+                            pacedDelay = -1;
+                        } else {
+                            nextRun += period;
+                            if (nextRun - now < 0) nextRun += ((now - nextRun) / period + 1) * period;
+                        }
+                        future = scheduler.schedule(this, nextRun - now, TimeUnit.NANOSECONDS);
+                    }
+                }
+            }
+        }
+
+        private void pace(long delay, boolean exact) {
+            if (cancelled || scheduler == null) return;
+            if (running) {
+                pacedDelay = exact ? delay : Math.max(delay, Math.max(pacedDelay, period));
+                return;
+            }
+            if (future != null) {
+                if (!exact && future.getDelay(TimeUnit.NANOSECONDS) >= delay) return;
+                future.cancel(false);
+            }
+            nextRun = System.nanoTime() + delay;
+            future = scheduler.schedule(this, delay, TimeUnit.NANOSECONDS);
+        }
+
+        private void cancel() {
+            cancelled = true;
+            if (future != null) future.cancel(false);
+        }
+    }
+}
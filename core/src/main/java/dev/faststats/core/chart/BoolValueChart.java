@@ -0,0 +1,29 @@
+package dev.faststats.core.chart;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
+
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+final class BoolValueChart extends SimpleChart<Boolean> implements PrimitiveChart<Boolean> {
+    private final BooleanSupplier supplier;
+
+    public BoolValueChart(@ChartId String id, BooleanSupplier supplier) throws IllegalArgumentException {
+        super(id, supplier::getAsBoolean);
+        this.supplier = supplier;
+    }
+
+    @Override
+    public boolean writeData(JsonWriter writer) throws Exception {
+        var value = supplier.getAsBoolean();
+        writer.name(getId()).value(value);
+        return true;
+    }
+
+    @Override
+    public Optional<JsonElement> getData() throws Exception {
+        return compute().map(JsonPrimitive::new);
+    }
+}
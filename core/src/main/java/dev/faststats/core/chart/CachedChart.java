@@ -0,0 +1,37 @@
+package dev.faststats.core.chart;
+
+import com.google.gson.JsonElement;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+
+/**
+ * A chart caching the data of another chart.
+ * <p>
+ * The data is computed once and then served from the cache until it expires.
+ * Expired data keeps being served while it is recomputed in the background,
+ * so only the very first computation happens on the submission path.
+ * Metrics instances recompute the data on their chart executor and report failures like any other chart error,
+ * if the recomputation fails, the expired data is served and the computation is retried by the next call.
+ *
+ * @param <T> the chart data type
+ * @see Chart#cached(Chart, Duration)
+ * @see Chart#cached(Chart, Duration, Executor)
+ * @since 0.1.0
+ */
+public interface CachedChart<T> extends Chart<T> {
+    /**
+     * Get the cached chart data, recomputing expired data in the background.
+     * <p>
+     * Data is recomputed on the executor given when creating the chart, or on the given executor otherwise.
+     *
+     * @param executor     the executor to recompute expired data on
+     * @param errorHandler handles the error message and cause if recomputing the data fails
+     * @return the chart data
+     * @throws Exception if unable to compute the chart data the very first time
+     * @since 0.1.0
+     */
+    Optional<JsonElement> getData(Executor executor, BiConsumer<String, Throwable> errorHandler) throws Exception;
+}
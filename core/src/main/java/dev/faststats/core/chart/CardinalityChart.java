@@ -0,0 +1,59 @@
+package dev.faststats.core.chart;
+
+import java.util.UUID;
+
+/**
+ * A chart estimating the number of unique values between submissions, like unique players or addresses.
+ * <p>
+ * Values are counted in a HyperLogLog sketch of {@value #REGISTERS} registers,
+ * so memory stays at a few kilobytes regardless of the number of values,
+ * with a typical relative error of about 1.6%.
+ * Recording is lock-free and allocation-free.
+ * Each submission reports the estimate, and optionally the raw registers so sketches of multiple servers can be merged,
+ * and resets the sketch.
+ *
+ * @see Chart#cardinality(String, boolean)
+ * @since 0.1.0
+ */
+public interface CardinalityChart extends Chart<CardinalityChart.Snapshot> {
+    /**
+     * The number of registers, {@code 2^12}.
+     *
+     * @since 0.1.0
+     */
+    int REGISTERS = 4096;
+
+    /**
+     * Record a value.
+     *
+     * @param value the value
+     * @since 0.1.0
+     */
+    void record(long value);
+
+    /**
+     * Record a unique id, like a player id.
+     *
+     * @param value the value
+     * @since 0.1.0
+     */
+    void record(UUID value);
+
+    /**
+     * Record a string, like an address or a world name.
+     *
+     * @param value the value
+     * @since 0.1.0
+     */
+    void record(CharSequence value);
+
+    /**
+     * The values recorded within a submission window.
+     *
+     * @param estimate  the estimated number of unique values
+     * @param registers the registers of the sketch, one byte per register
+     * @since 0.1.0
+     */
+    record Snapshot(long estimate, byte[] registers) {
+    }
+}
@@ -0,0 +1,54 @@
+package dev.faststats.core.chart;
+
+import java.util.Map;
+
+/**
+ * A chart counting categories between submissions, like command names or client brands.
+ * <p>
+ * Categories are counted with the space-saving algorithm in a fixed number of counters,
+ * so memory stays bounded even if categories are controlled by players.
+ * Categories longer than {@value #MAX_CATEGORY_LENGTH} characters are truncated.
+ * Each submission reports the most frequent categories along with the number of all other recorded events,
+ * and resets the counts.
+ * <p>
+ * Counts of the reported categories are upper bounds, they may include events of evicted categories.
+ * Any category occurring in more than {@code 1 / counters} of all events is guaranteed to be reported.
+ *
+ * @see Chart#categorical(String, int)
+ * @since 0.1.0
+ */
+public interface CategoricalChart extends Chart<CategoricalChart.Snapshot> {
+    /**
+     * The maximum length of a category.
+     *
+     * @since 0.1.0
+     */
+    int MAX_CATEGORY_LENGTH = 64;
+
+    /**
+     * Record an event of the given category.
+     *
+     * @param category the category
+     * @since 0.1.0
+     */
+    void record(String category);
+
+    /**
+     * Record the given number of events of a category.
+     *
+     * @param category the category
+     * @param count    the number of events
+     * @since 0.1.0
+     */
+    void record(String category, long count);
+
+    /**
+     * The categories recorded within a submission window.
+     *
+     * @param top   the most frequent categories and their counts, ordered by count
+     * @param other the number of events of all other categories
+     * @since 0.1.0
+     */
+    record Snapshot(Map<String, Long> top, long other) {
+    }
+}
@@ -4,9 +4,14 @@ import com.google.gson.JsonElement;
 import org.jetbrains.annotations.Contract;
 import org.jspecify.annotations.Nullable;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
 
 /**
  * A chart.
@@ -27,13 +32,20 @@ public interface Chart<T> {
 
     /**
      * Compute the chart data.
+     * <p>
+     * The chart data is computed once per submission.
+     * Windowed charts, like {@link #counter(String) counters}, {@link #histogram(String) histograms},
+     * {@link #gauge(String, DoubleSupplier, Duration) gauges}, {@link #categorical(String, int) categorical}
+     * and {@link #cardinality(String, boolean) cardinality} charts,
+     * reset the data recorded so far when computing it,
+     * so every submission reports the window since the previous one.
      *
      * @return an optional containing the chart data
      * @throws Exception if unable to compute the chart data
-     * @implSpec The implementation must be thread-safe and pure (i.e. not modify any shared state).
+     * @implSpec The implementation must be thread-safe.
+     * It must not modify any shared state, except for resetting the window of a windowed chart.
      * @since 0.1.0
      */
-    @Contract(pure = true)
     Optional<T> compute() throws Exception;
 
     /**
@@ -41,12 +53,11 @@ public interface Chart<T> {
      *
      * @return an optional containing the chart data as {@link JsonElement}
      * @throws Exception if unable to get the chart data
-     * @implSpec The implementation must call {@link #compute()} to get the chart data
-     * and follow the same thread-safety and pureness requirements.
+     * @implSpec The implementation must call {@link #compute()} exactly once to get the chart data
+     * and follow the same thread-safety requirements.
      * @see #compute()
      * @since 0.1.0
      */
-    @Contract(pure = true)
     Optional<JsonElement> getData() throws Exception;
 
     /**
@@ -114,4 +125,181 @@ public interface Chart<T> {
     static Chart<Number> number(@ChartId String id, Callable<@Nullable Number> callable) throws IllegalArgumentException {
         return new SingleValueChart<>(id, callable);
     }
+
+    /**
+     * Create a chart for a long value, written without boxing.
+     *
+     * @param id       the chart id
+     * @param supplier the chart data supplier
+     * @return the long chart
+     * @throws IllegalArgumentException if the chart id is invalid
+     * @apiNote The supplier must be cheap, thread-safe and pure (i.e. not modify any shared state).
+     * @see PrimitiveChart
+     * @since 0.1.0
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    static Chart<Long> longValue(@ChartId String id, LongSupplier supplier) throws IllegalArgumentException {
+        return new LongValueChart(id, supplier);
+    }
+
+    /**
+     * Create a chart for a double value, written without boxing.
+     *
+     * @param id       the chart id
+     * @param supplier the chart data supplier
+     * @return the double chart
+     * @throws IllegalArgumentException if the chart id is invalid
+     * @apiNote The supplier must be cheap, thread-safe and pure (i.e. not modify any shared state).
+     * @see PrimitiveChart
+     * @since 0.1.0
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    static Chart<Double> doubleValue(@ChartId String id, DoubleSupplier supplier) throws IllegalArgumentException {
+        return new DoubleValueChart(id, supplier);
+    }
+
+    /**
+     * Create a chart for a boolean value, written without boxing.
+     *
+     * @param id       the chart id
+     * @param supplier the chart data supplier
+     * @return the boolean chart
+     * @throws IllegalArgumentException if the chart id is invalid
+     * @apiNote The supplier must be cheap, thread-safe and pure (i.e. not modify any shared state).
+     * @see PrimitiveChart
+     * @since 0.1.0
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    static Chart<Boolean> boolValue(@ChartId String id, BooleanSupplier supplier) throws IllegalArgumentException {
+        return new BoolValueChart(id, supplier);
+    }
+
+    /**
+     * Create a chart counting events between submissions.
+     *
+     * @param id the chart id
+     * @return the counter chart
+     * @throws IllegalArgumentException if the chart id is invalid
+     * @apiNote Unlike other charts, computing the data of a counter chart resets its count,
+     * so every submission reports the events recorded since the previous one.
+     * @see CounterChart
+     * @since 0.1.0
+     */
+    @Contract(value = "_ -> new", pure = true)
+    static CounterChart counter(@ChartId String id) throws IllegalArgumentException {
+        return new SimpleCounterChart(id);
+    }
+
+    /**
+     * Create a chart recording the distribution of values between submissions.
+     *
+     * @param id the chart id
+     * @return the histogram chart
+     * @throws IllegalArgumentException if the chart id is invalid
+     * @apiNote Unlike other charts, computing the data of a histogram chart resets its buckets,
+     * so every submission reports the values recorded since the previous one.
+     * @see HistogramChart
+     * @since 0.1.0
+     */
+    @Contract(value = "_ -> new", pure = true)
+    static HistogramChart histogram(@ChartId String id) throws IllegalArgumentException {
+        return new SimpleHistogramChart(id);
+    }
+
+    /**
+     * Create a chart counting categories between submissions, reporting only the most frequent ones.
+     *
+     * @param id    the chart id
+     * @param limit the number of most frequent categories to report
+     * @return the categorical chart
+     * @throws IllegalArgumentException if the chart id is invalid or the limit is not positive
+     * @apiNote Unlike other charts, computing the data of a categorical chart resets its counts,
+     * so every submission reports the events recorded since the previous one.
+     * @see CategoricalChart
+     * @since 0.1.0
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    static CategoricalChart categorical(@ChartId String id, int limit) throws IllegalArgumentException {
+        return new TopCategoriesChart(id, limit);
+    }
+
+    /**
+     * Create a chart estimating the number of unique values between submissions.
+     *
+     * @param id        the chart id
+     * @param registers whether to submit the raw registers along with the estimate,
+     *                  allowing the metrics server to merge the sketches of multiple servers
+     * @return the cardinality chart
+     * @throws IllegalArgumentException if the chart id is invalid
+     * @apiNote Unlike other charts, computing the data of a cardinality chart resets its sketch,
+     * so every submission reports the values recorded since the previous one.
+     * @see CardinalityChart
+     * @since 0.1.0
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    static CardinalityChart cardinality(@ChartId String id, boolean registers) throws IllegalArgumentException {
+        return new HyperLogLogChart(id, registers);
+    }
+
+    /**
+     * Create a chart sampling a value in the background.
+     *
+     * @param id       the chart id
+     * @param sampler  the sampler
+     * @param interval the interval between two samples
+     * @return the gauge chart
+     * @throws IllegalArgumentException if the chart id is invalid or the interval is not positive
+     * @apiNote The sampler runs on the metrics collector thread and must be cheap and thread-safe,
+     * a sample is skipped while the previous one is still running.
+     * Unlike other charts, computing the data of a gauge chart resets its window.
+     * @see GaugeChart
+     * @since 0.1.0
+     */
+    @Contract(value = "_, _, _ -> new", pure = true)
+    static GaugeChart gauge(@ChartId String id, DoubleSupplier sampler, Duration interval) throws IllegalArgumentException {
+        return new SampledGaugeChart(id, sampler, interval);
+    }
+
+    /**
+     * Create a chart caching the data of another chart, recomputing it in the background.
+     * <p>
+     * The data is recomputed once it is older than the given ttl,
+     * on the chart executor of the metrics instance computing the chart data for the submission.
+     * Until the recomputation finished, and if it fails, the previous data is served.
+     *
+     * @param chart the chart to cache
+     * @param ttl   the time the data is considered fresh
+     * @param <T>   the chart data type
+     * @return the cached chart
+     * @throws IllegalArgumentException if the ttl is not positive
+     * @apiNote Only the chart data is cached, {@link #compute()} always computes the data of the given chart.
+     * Charts resetting their state when computed, like counters, should not be cached.
+     * @see #cached(Chart, Duration, Executor)
+     * @since 0.1.0
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    static <T> CachedChart<T> cached(Chart<T> chart, Duration ttl) throws IllegalArgumentException {
+        return new ExpiringCachedChart<>(chart, ttl, null);
+    }
+
+    /**
+     * Create a chart caching the data of another chart, recomputing it in the background.
+     * <p>
+     * The data is recomputed on the given executor once it is older than the given ttl.
+     * Until the recomputation finished, and if it fails, the previous data is served.
+     *
+     * @param chart    the chart to cache
+     * @param ttl      the time the data is considered fresh
+     * @param executor the executor to recompute the data on
+     * @param <T>      the chart data type
+     * @return the cached chart
+     * @throws IllegalArgumentException if the ttl is not positive
+     * @apiNote Only the chart data is cached, {@link #compute()} always computes the data of the given chart.
+     * Charts resetting their state when computed, like counters, should not be cached.
+     * @since 0.1.0
+     */
+    @Contract(value = "_, _, _ -> new", pure = true)
+    static <T> CachedChart<T> cached(Chart<T> chart, Duration ttl, Executor executor) throws IllegalArgumentException {
+        return new ExpiringCachedChart<>(chart, ttl, executor);
+    }
 }
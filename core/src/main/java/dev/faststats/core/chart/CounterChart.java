@@ -0,0 +1,28 @@
+package dev.faststats.core.chart;
+
+/**
+ * A chart counting events between submissions.
+ * <p>
+ * Recording is an allocation-free striped increment,
+ * safe to call at very high rates from any number of threads without contention.
+ * Each submission reports the number of events recorded since the previous submission and resets the count.
+ *
+ * @see Chart#counter(String)
+ * @since 0.1.0
+ */
+public interface CounterChart extends Chart<Long> {
+    /**
+     * Record a single event.
+     *
+     * @since 0.1.0
+     */
+    void increment();
+
+    /**
+     * Record the given number of events.
+     *
+     * @param count the number of events
+     * @since 0.1.0
+     */
+    void add(long count);
+}
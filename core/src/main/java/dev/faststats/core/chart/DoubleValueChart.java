@@ -0,0 +1,30 @@
+package dev.faststats.core.chart;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
+
+import java.util.Optional;
+import java.util.function.DoubleSupplier;
+
+final class DoubleValueChart extends SimpleChart<Double> implements PrimitiveChart<Double> {
+    private final DoubleSupplier supplier;
+
+    public DoubleValueChart(@ChartId String id, DoubleSupplier supplier) throws IllegalArgumentException {
+        super(id, supplier::getAsDouble);
+        this.supplier = supplier;
+    }
+
+    @Override
+    public boolean writeData(JsonWriter writer) throws Exception {
+        var value = supplier.getAsDouble();
+        if (!Double.isFinite(value)) return false;
+        writer.name(getId()).value(value);
+        return true;
+    }
+
+    @Override
+    public Optional<JsonElement> getData() throws Exception {
+        return compute().map(JsonPrimitive::new);
+    }
+}
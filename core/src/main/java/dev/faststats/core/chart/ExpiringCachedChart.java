@@ -0,0 +1,113 @@
+package dev.faststats.core.chart;
+
+import com.google.gson.JsonElement;
+import org.jspecify.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+/**
+ * A chart caching the data of another chart until it expires.
+ * <p>
+ * The call noticing that the data expired still serves the expired data, later calls the recomputed data.
+ * Outside of metrics instances, {@link #getData()} recomputes expired data on the executor given when creating the chart,
+ * or on the calling thread if there is none, failures are not reported.
+ *
+ * @param <T> the chart data type
+ */
+final class ExpiringCachedChart<T> implements CachedChart<T> {
+    private final Chart<T> chart;
+    private final @Nullable Executor executor;
+    private final long ttl;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private volatile @Nullable Entry entry = null;
+
+    public ExpiringCachedChart(Chart<T> chart, Duration ttl, @Nullable Executor executor) throws IllegalArgumentException {
+        if (!ttl.isPositive()) throw new IllegalArgumentException("Cache ttl must be positive: " + ttl);
+        this.chart = chart;
+        this.executor = executor;
+        this.ttl = ttl.toNanos();
+    }
+
+    @Override
+    public @ChartId String getId() {
+        return chart.getId();
+    }
+
+    /**
+     * Compute the data of the cached chart, bypassing the cache.
+     */
+    @Override
+    public Optional<T> compute() throws Exception {
+        return chart.compute();
+    }
+
+    @Override
+    public Optional<JsonElement> getData() throws Exception {
+        return getData(Runnable::run, (message, throwable) -> {
+        });
+    }
+
+    @Override
+    public Optional<JsonElement> getData(Executor executor, BiConsumer<String, Throwable> errorHandler) throws Exception {
+        var entry = this.entry;
+        if (entry == null) return load();
+        if (System.nanoTime() - entry.expiresAt() < 0 || !refreshing.compareAndSet(false, true)) return entry.data();
+
+        try {
+            (this.executor != null ? this.executor : executor).execute(() -> refresh(errorHandler));
+        } catch (RejectedExecutionException e) {
+            refreshing.set(false);
+            errorHandler.accept("Failed to schedule refresh of cached chart data, serving expired data: " + getId(), e);
+        }
+        return entry.data();
+    }
+
+    private synchronized Optional<JsonElement> load() throws Exception {
+        var entry = this.entry;
+        if (entry != null) return entry.data();
+        var data = chart.getData();
+        this.entry = new Entry(data, System.nanoTime() + ttl);
+        return data;
+    }
+
+    private void refresh(BiConsumer<String, Throwable> errorHandler) {
+        try {
+            entry = new Entry(chart.getData(), System.nanoTime() + ttl);
+        } catch (Exception e) {
+            errorHandler.accept("Failed to refresh cached chart data, serving expired data: " + getId(), e);
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        ExpiringCachedChart<?> that = (ExpiringCachedChart<?>) o;
+        return Objects.equals(getId(), that.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "ExpiringCachedChart{" +
+                "chart=" + chart +
+                ", ttl=" + Duration.ofNanos(ttl) +
+                ", executor=" + executor +
+                '}';
+    }
+
+    private record Entry(Optional<JsonElement> data, long expiresAt) {
+    }
+}
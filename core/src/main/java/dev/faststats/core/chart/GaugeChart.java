@@ -0,0 +1,47 @@
+package dev.faststats.core.chart;
+
+import org.jetbrains.annotations.Contract;
+
+import java.time.Duration;
+
+/**
+ * A chart sampling a value in the background and reporting its shape between submissions.
+ * <p>
+ * While metrics are submitted, the value is sampled at a fixed {@link #interval() interval} on the metrics collector thread
+ * and folded into a running minimum, maximum, average and last value without allocating.
+ * Each submission reports the aggregate of the samples taken since the previous submission.
+ * If no sample was taken yet, a sample is taken when the data is computed.
+ *
+ * @see Chart#gauge(String, java.util.function.DoubleSupplier, Duration)
+ * @since 0.1.0
+ */
+public interface GaugeChart extends Chart<GaugeChart.Window> {
+    /**
+     * Get the interval between two samples.
+     *
+     * @return the sample interval
+     * @since 0.1.0
+     */
+    @Contract(pure = true)
+    Duration interval();
+
+    /**
+     * Take a sample and fold it into the current window.
+     *
+     * @since 0.1.0
+     */
+    void sample();
+
+    /**
+     * The aggregate of the samples taken within a submission window.
+     *
+     * @param samples the number of samples
+     * @param min     the lowest sample
+     * @param max     the highest sample
+     * @param mean    the average of all samples
+     * @param last    the most recent sample
+     * @since 0.1.0
+     */
+    record Window(long samples, double min, double max, double mean, double last) {
+    }
+}
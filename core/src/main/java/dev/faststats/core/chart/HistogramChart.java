@@ -0,0 +1,63 @@
+package dev.faststats.core.chart;
+
+import org.jetbrains.annotations.Contract;
+
+import java.util.SortedMap;
+
+/**
+ * A chart recording the distribution of values between submissions, like tick times or query latencies.
+ * <p>
+ * Values are counted in fixed log-linear buckets, each power of two is split into
+ * {@value #SUB_BUCKETS} linear buckets, so the bucket of a value is at most 1/{@value #SUB_BUCKETS} wider than the value.
+ * Recording is lock-free and allocation-free, counting into striped bucket arrays,
+ * and cheap enough to be used on hot paths.
+ * Each submission reports the distribution recorded since the previous submission and resets the buckets.
+ *
+ * @see Chart#histogram(String)
+ * @since 0.1.0
+ */
+public interface HistogramChart extends Chart<HistogramChart.Snapshot> {
+    /**
+     * The number of linear buckets per power of two.
+     *
+     * @since 0.1.0
+     */
+    int SUB_BUCKETS = 16;
+
+    /**
+     * Record a value.
+     * <p>
+     * Values are non-negative and use a unit of choice, like microseconds, negative values are recorded as {@code 0}.
+     *
+     * @param value the value
+     * @since 0.1.0
+     */
+    void record(long value);
+
+    /**
+     * A recorded distribution.
+     * <p>
+     * Percentiles are reported as the highest value of the bucket they fall into.
+     *
+     * @param count   the number of recorded values
+     * @param sum     the sum of all recorded values
+     * @param max     the highest recorded value
+     * @param p50     the median
+     * @param p95     the 95th percentile
+     * @param p99     the 99th percentile
+     * @param buckets the number of values per non-empty bucket, keyed by the lowest value of the bucket
+     * @since 0.1.0
+     */
+    record Snapshot(long count, long sum, long max, long p50, long p95, long p99, SortedMap<Long, Long> buckets) {
+        /**
+         * Get the average of all recorded values.
+         *
+         * @return the average
+         * @since 0.1.0
+         */
+        @Contract(pure = true)
+        public double mean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+    }
+}
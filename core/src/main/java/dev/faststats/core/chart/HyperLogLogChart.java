@@ -0,0 +1,118 @@
+package dev.faststats.core.chart;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+final class HyperLogLogChart extends SimpleChart<CardinalityChart.Snapshot> implements CardinalityChart {
+    private static final int PRECISION = Integer.numberOfTrailingZeros(REGISTERS);
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private final Sketch sketch;
+    private final boolean registers;
+
+    public HyperLogLogChart(@ChartId String id, boolean registers) throws IllegalArgumentException {
+        this(id, new Sketch(), registers);
+    }
+
+    private HyperLogLogChart(@ChartId String id, Sketch sketch, boolean registers) throws IllegalArgumentException {
+        super(id, sketch::snapshotAndReset);
+        this.sketch = sketch;
+        this.registers = registers;
+    }
+
+    @Override
+    public void record(long value) {
+        sketch.add(mix(value));
+    }
+
+    @Override
+    public void record(UUID value) {
+        sketch.add(mix(value.getMostSignificantBits() ^ mix(value.getLeastSignificantBits())));
+    }
+
+    @Override
+    public void record(CharSequence value) {
+        var hash = 0xcbf29ce484222325L;
+        for (var i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        sketch.add(mix(hash));
+    }
+
+    /**
+     * Serializes the snapshot, with the registers as base64 encoded bytes if enabled:
+     * <pre>{@code
+     * { "estimate": 1234, "precision": 12, "registers": "..." }
+     * }</pre>
+     */
+    @Override
+    public Optional<JsonElement> getData() throws Exception {
+        return compute().map(snapshot -> {
+            var data = new JsonObject();
+            data.addProperty("estimate", snapshot.estimate());
+            if (registers) {
+                data.addProperty("precision", PRECISION);
+                data.addProperty("registers", Base64.getEncoder().encodeToString(snapshot.registers()));
+            }
+            return data;
+        });
+    }
+
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    static long estimate(byte[] registers) {
+        double sum = 0;
+        var zeros = 0;
+        for (var register : registers) {
+            sum += Math.scalb(1d, -register);
+            if (register == 0) zeros++;
+        }
+        var estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros != 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * The registers, packed four per int and updated by compare-and-set.
+     */
+    private static final class Sketch {
+        private final AtomicIntegerArray registers = new AtomicIntegerArray(REGISTERS / 4);
+
+        private void add(long hash) {
+            var index = (int) (hash >>> (Long.SIZE - PRECISION));
+            var rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+            var slot = index >>> 2;
+            var shift = (index & 3) << 3;
+            while (true) {
+                var packed = registers.get(slot);
+                if (((packed >>> shift) & 0xFF) >= rank) return;
+                var updated = (packed & ~(0xFF << shift)) | (rank << shift);
+                if (registers.compareAndSet(slot, packed, updated)) return;
+            }
+        }
+
+        private @Nullable Snapshot snapshotAndReset() {
+            var bytes = new byte[REGISTERS];
+            var empty = true;
+            for (var slot = 0; slot < REGISTERS / 4; slot++) {
+                if (registers.get(slot) == 0) continue;
+                var packed = registers.getAndSet(slot, 0);
+                for (var i = 0; i < 4; i++) bytes[(slot << 2) + i] = (byte) (packed >>> (i << 3));
+                empty = false;
+            }
+            return empty ? null : new Snapshot(estimate(bytes), bytes);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package dev.faststats.core.chart;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
+
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+final class LongValueChart extends SimpleChart<Long> implements PrimitiveChart<Long> {
+    private final LongSupplier supplier;
+
+    public LongValueChart(@ChartId String id, LongSupplier supplier) throws IllegalArgumentException {
+        super(id, supplier::getAsLong);
+        this.supplier = supplier;
+    }
+
+    @Override
+    public boolean writeData(JsonWriter writer) throws Exception {
+        var value = supplier.getAsLong();
+        writer.name(getId()).value(value);
+        return true;
+    }
+
+    @Override
+    public Optional<JsonElement> getData() throws Exception {
+        return compute().map(JsonPrimitive::new);
+    }
+}
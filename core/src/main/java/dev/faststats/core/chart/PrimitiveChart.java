@@ -0,0 +1,30 @@
+package dev.faststats.core.chart;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A chart for a primitive value, which can be written to the payload without boxing.
+ * <p>
+ * Primitive charts are evaluated on the thread writing the payload instead of the chart executor,
+ * so their suppliers must be cheap and the chart timeout does not apply to them.
+ *
+ * @param <T> the boxed chart data type
+ * @see Chart#longValue(String, java.util.function.LongSupplier)
+ * @see Chart#doubleValue(String, java.util.function.DoubleSupplier)
+ * @see Chart#boolValue(String, java.util.function.BooleanSupplier)
+ * @since 0.1.0
+ */
+public sealed interface PrimitiveChart<T> extends Chart<T> permits LongValueChart, DoubleValueChart, BoolValueChart {
+    /**
+     * Compute the chart data and write it to the given writer, named by the chart id.
+     * <p>
+     * Nothing is written if computing the data fails or if the value cannot be represented in the payload,
+     * like {@link Double#NaN} or infinite values.
+     *
+     * @param writer the writer to write to
+     * @return true if the value was written, false if it was skipped because it is not finite
+     * @throws Exception if unable to compute or write the chart data
+     * @since 0.1.0
+     */
+    boolean writeData(JsonWriter writer) throws Exception;
+}
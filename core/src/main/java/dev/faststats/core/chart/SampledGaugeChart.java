@@ -0,0 +1,80 @@
+package dev.faststats.core.chart;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.DoubleSupplier;
+
+final class SampledGaugeChart extends SimpleChart<GaugeChart.Window> implements GaugeChart {
+    private final Samples samples;
+    private final Duration interval;
+
+    public SampledGaugeChart(@ChartId String id, DoubleSupplier sampler, Duration interval) throws IllegalArgumentException {
+        this(id, new Samples(sampler), interval);
+    }
+
+    private SampledGaugeChart(@ChartId String id, Samples samples, Duration interval) throws IllegalArgumentException {
+        super(id, samples::windowAndReset);
+        if (!interval.isPositive()) throw new IllegalArgumentException("Sample interval must be positive: " + interval);
+        this.samples = samples;
+        this.interval = interval;
+    }
+
+    @Override
+    public Duration interval() {
+        return interval;
+    }
+
+    @Override
+    public void sample() {
+        samples.sample();
+    }
+
+    @Override
+    public Optional<JsonElement> getData() throws Exception {
+        return compute().map(window -> {
+            var data = new JsonObject();
+            data.addProperty("min", window.min());
+            data.addProperty("max", window.max());
+            data.addProperty("avg", window.mean());
+            data.addProperty("last", window.last());
+            data.addProperty("samples", window.samples());
+            return data;
+        });
+    }
+
+    private static final class Samples {
+        private final DoubleSupplier sampler;
+        private long count = 0;
+        private double min = 0;
+        private double max = 0;
+        private double sum = 0;
+        private double last = 0;
+
+        private Samples(DoubleSupplier sampler) {
+            this.sampler = sampler;
+        }
+
+        private void sample() {
+            add(sampler.getAsDouble());
+        }
+
+        private synchronized void add(double value) {
+            if (count == 0 || value < min) min = value;
+            if (count == 0 || value > max) max = value;
+            sum += value;
+            last = value;
+            count++;
+        }
+
+        private synchronized Window windowAndReset() {
+            if (count == 0) add(sampler.getAsDouble());
+            var window = new Window(count, min, max, sum / count, last);
+            count = 0;
+            sum = 0;
+            return window;
+        }
+    }
+}
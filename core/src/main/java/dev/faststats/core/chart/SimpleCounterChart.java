@@ -0,0 +1,35 @@
+package dev.faststats.core.chart;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+final class SimpleCounterChart extends SimpleChart<Long> implements CounterChart {
+    private final LongAdder adder;
+
+    public SimpleCounterChart(@ChartId String id) throws IllegalArgumentException {
+        this(id, new LongAdder());
+    }
+
+    private SimpleCounterChart(@ChartId String id, LongAdder adder) throws IllegalArgumentException {
+        super(id, adder::sumThenReset);
+        this.adder = adder;
+    }
+
+    @Override
+    public void increment() {
+        adder.increment();
+    }
+
+    @Override
+    public void add(long count) {
+        adder.add(count);
+    }
+
+    @Override
+    public Optional<JsonElement> getData() throws Exception {
+        return compute().map(JsonPrimitive::new);
+    }
+}
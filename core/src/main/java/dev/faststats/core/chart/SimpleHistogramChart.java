@@ -0,0 +1,135 @@
+package dev.faststats.core.chart;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+final class SimpleHistogramChart extends SimpleChart<HistogramChart.Snapshot> implements HistogramChart {
+    private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+    private static final int BUCKET_COUNT = index(Long.MAX_VALUE) + 1;
+    private static final int STRIPES = Integer.highestOneBit(Math.clamp(Runtime.getRuntime().availableProcessors(), 1, 4));
+
+    private final Buckets buckets;
+
+    public SimpleHistogramChart(@ChartId String id) throws IllegalArgumentException {
+        this(id, new Buckets());
+    }
+
+    private SimpleHistogramChart(@ChartId String id, Buckets buckets) throws IllegalArgumentException {
+        super(id, buckets::snapshotAndReset);
+        this.buckets = buckets;
+    }
+
+    @Override
+    public void record(long value) {
+        buckets.record(Math.max(0, value));
+    }
+
+    /**
+     * Serializes the snapshot, with the buckets as flat array of alternating lowest bucket value and count:
+     * <pre>{@code
+     * { "count": 5, "sum": 61, "max": 37, "p50": 7, "p95": 37, "p99": 37, "buckets": [3, 1, 7, 3, 36, 1] }
+     * }</pre>
+     */
+    @Override
+    public Optional<JsonElement> getData() throws Exception {
+        return compute().map(snapshot -> {
+            var data = new JsonObject();
+            data.addProperty("count", snapshot.count());
+            data.addProperty("sum", snapshot.sum());
+            data.addProperty("max", snapshot.max());
+            data.addProperty("p50", snapshot.p50());
+            data.addProperty("p95", snapshot.p95());
+            data.addProperty("p99", snapshot.p99());
+            var buckets = new JsonArray(snapshot.buckets().size() * 2);
+            snapshot.buckets().forEach((lowest, count) -> {
+                buckets.add(lowest);
+                buckets.add(count);
+            });
+            data.add("buckets", buckets);
+            return data;
+        });
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        var exponent = 63 - Long.numberOfLeadingZeros(value);
+        var shift = exponent - SUB_BUCKET_BITS;
+        var mantissa = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return ((shift + 1) << SUB_BUCKET_BITS) + mantissa;
+    }
+
+    static long lowestValue(int index) {
+        if (index < SUB_BUCKETS) return index;
+        var shift = (index >>> SUB_BUCKET_BITS) - 1;
+        var mantissa = index & (SUB_BUCKETS - 1);
+        return (long) (SUB_BUCKETS + mantissa) << shift;
+    }
+
+    static long highestValue(int index) {
+        if (index < SUB_BUCKETS) return index;
+        var shift = (index >>> SUB_BUCKET_BITS) - 1;
+        return lowestValue(index) + (1L << shift) - 1;
+    }
+
+    /**
+     * Striped bucket counters, threads pick their stripe by thread id.
+     */
+    private static final class Buckets {
+        private final AtomicLongArray counts = new AtomicLongArray(STRIPES * BUCKET_COUNT);
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        private void record(long value) {
+            var stripe = (int) Thread.currentThread().threadId() & (STRIPES - 1);
+            counts.getAndIncrement(stripe * BUCKET_COUNT + index(value));
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+        private @Nullable Snapshot snapshotAndReset() {
+            var merged = new long[BUCKET_COUNT];
+            long count = 0;
+            for (var stripe = 0; stripe < STRIPES; stripe++) {
+                var offset = stripe * BUCKET_COUNT;
+                for (var index = 0; index < BUCKET_COUNT; index++) {
+                    if (counts.get(offset + index) == 0) continue;
+                    var bucket = counts.getAndSet(offset + index, 0);
+                    merged[index] += bucket;
+                    count += bucket;
+                }
+            }
+            var sum = this.sum.sumThenReset();
+            var max = this.max.getThenReset();
+            if (count == 0) return null;
+
+            var buckets = new TreeMap<Long, Long>();
+            for (var index = 0; index < BUCKET_COUNT; index++) {
+                if (merged[index] != 0) buckets.put(lowestValue(index), merged[index]);
+            }
+            return new Snapshot(count, sum, max,
+                    percentile(merged, count, 0.50, max),
+                    percentile(merged, count, 0.95, max),
+                    percentile(merged, count, 0.99, max),
+                    Collections.unmodifiableSortedMap(buckets));
+        }
+
+        private static long percentile(long[] buckets, long count, double percentile, long max) {
+            var rank = Math.max(1, (long) Math.ceil(percentile * count));
+            long seen = 0;
+            for (var index = 0; index < buckets.length; index++) {
+                seen += buckets[index];
+                if (seen >= rank) return Math.min(highestValue(index), max);
+            }
+            return max;
+        }
+    }
+}
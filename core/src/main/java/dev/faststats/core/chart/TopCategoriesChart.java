@@ -0,0 +1,161 @@
+package dev.faststats.core.chart;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+final class TopCategoriesChart extends SimpleChart<CategoricalChart.Snapshot> implements CategoricalChart {
+    private static final int COUNTERS_PER_CATEGORY = 4;
+
+    private final Counters counters;
+
+    public TopCategoriesChart(@ChartId String id, int limit) throws IllegalArgumentException {
+        this(id, new Counters(limit));
+    }
+
+    private TopCategoriesChart(@ChartId String id, Counters counters) throws IllegalArgumentException {
+        super(id, counters::snapshotAndReset);
+        this.counters = counters;
+    }
+
+    @Override
+    public void record(String category) {
+        record(category, 1);
+    }
+
+    @Override
+    public void record(String category, long count) {
+        if (count <= 0) return;
+        if (category.length() > MAX_CATEGORY_LENGTH) category = category.substring(0, MAX_CATEGORY_LENGTH);
+        counters.add(category, count);
+    }
+
+    /**
+     * Serializes the snapshot like this:
+     * <pre>{@code
+     * { "top": { "spawn": 120, "home": 87 }, "other": 12 }
+     * }</pre>
+     */
+    @Override
+    public Optional<JsonElement> getData() throws Exception {
+        return compute().map(snapshot -> {
+            var top = new JsonObject();
+            snapshot.top().forEach(top::addProperty);
+            var data = new JsonObject();
+            data.add("top", top);
+            data.addProperty("other", snapshot.other());
+            return data;
+        });
+    }
+
+    /**
+     * Space-saving counters: an unseen category replaces the category with the lowest count,
+     * inheriting its count.
+     * <p>
+     * The counters are kept in an indexed min-heap, so the lowest counter is found in constant time
+     * and adding to a counter or replacing one takes logarithmic time.
+     * Counter nodes are reused across windows, so recording only allocates for the category index.
+     */
+    private static final class Counters {
+        private final Map<String, Counter> index;
+        private final Counter[] heap;
+        private final int limit;
+        private int size = 0;
+        private long total = 0;
+
+        private Counters(int limit) {
+            if (limit <= 0) throw new IllegalArgumentException("Category limit must be positive: " + limit);
+            var capacity = Math.multiplyExact(limit, COUNTERS_PER_CATEGORY);
+            this.limit = limit;
+            this.heap = new Counter[capacity];
+            this.index = new HashMap<>(capacity * 4 / 3 + 1);
+        }
+
+        private synchronized void add(String category, long count) {
+            total += count;
+            var counter = index.get(category);
+            if (counter != null) {
+                counter.count += count;
+                siftDown(counter.position);
+            } else if (size < heap.length) {
+                counter = heap[size];
+                if (counter == null) counter = heap[size] = new Counter();
+                counter.category = category;
+                counter.count = count;
+                counter.position = size++;
+                index.put(category, counter);
+                siftUp(counter.position);
+            } else {
+                var min = heap[0];
+                index.remove(min.category);
+                min.category = category;
+                min.count += count;
+                index.put(category, min);
+                siftDown(0);
+            }
+        }
+
+        private void siftUp(int position) {
+            var counter = heap[position];
+            while (position > 0) {
+                var parent = (position - 1) >>> 1;
+                if (heap[parent].count <= counter.count) break;
+                place(heap[parent], position);
+                position = parent;
+            }
+            place(counter, position);
+        }
+
+        private void siftDown(int position) {
+            var counter = heap[position];
+            while (true) {
+                var child = 2 * position + 1;
+                if (child >= size) break;
+                if (child + 1 < size && heap[child + 1].count < heap[child].count) child++;
+                if (counter.count <= heap[child].count) break;
+                place(heap[child], position);
+                position = child;
+            }
+            place(counter, position);
+        }
+
+        private void place(Counter counter, int position) {
+            heap[position] = counter;
+            counter.position = position;
+        }
+
+        private synchronized @Nullable Snapshot snapshotAndReset() {
+            if (total == 0) return null;
+            var counters = new ArrayList<Counter>(size);
+            for (var i = 0; i < size; i++) counters.add(heap[i]);
+            counters.sort((a, b) -> Long.compare(b.count, a.count));
+
+            var top = new LinkedHashMap<String, Long>(Math.min(limit, size) * 4 / 3 + 1);
+            long reported = 0;
+            for (var counter : counters.subList(0, Math.min(limit, size))) {
+                top.put(counter.category, counter.count);
+                reported += counter.count;
+            }
+            var snapshot = new Snapshot(Collections.unmodifiableMap(top), Math.max(0, total - reported));
+
+            for (var i = 0; i < size; i++) heap[i].category = null;
+            index.clear();
+            size = 0;
+            total = 0;
+            return snapshot;
+        }
+    }
+
+    private static final class Counter {
+        private @Nullable String category;
+        private long count;
+        private int position;
+    }
+}
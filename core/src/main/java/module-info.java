@@ -7,6 +7,7 @@ module dev.faststats.core {
 
     requires com.github.luben.zstd_jni;
     requires com.google.gson;
+    requires java.management;
     requires java.net.http;
 
     requires static org.jetbrains.annotations;
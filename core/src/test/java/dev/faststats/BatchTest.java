@@ -0,0 +1,207 @@
+package dev.faststats;
+
+import com.google.gson.JsonObject;
+import dev.faststats.core.chart.Chart;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BatchTest {
+    private static final String FIRST_TOKEN = "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaa";
+    private static final String SECOND_TOKEN = "bbbbbbbbbbbbbbbbbbbbbbbbbbbbbb";
+
+    @Test
+    public void testEnvelope(@TempDir Path dataFolder) throws Exception {
+        try (var collector = new MockCollector()) {
+            var first = create(collector, FIRST_TOKEN, "first", dataFolder);
+            var second = create(collector, SECOND_TOKEN, "second", dataFolder);
+            try {
+                first.startSubmitting(200, 60_000, TimeUnit.MILLISECONDS);
+                second.startSubmitting(200, 60_000, TimeUnit.MILLISECONDS);
+                await(() -> !collector.payloads().isEmpty());
+
+                var payload = collector.lastPayload();
+                assertEquals(first.getConfig().serverId().toString(), payload.get("server_id").getAsString());
+                assertTrue(payload.getAsJsonObject("data").has("java_version"), "server data is shared");
+                assertEquals(List.of(FIRST_TOKEN, SECOND_TOKEN), tokens(payload));
+                var projects = payload.getAsJsonArray("projects");
+                assertEquals(1, projects.get(0).getAsJsonObject().getAsJsonObject("data").get("first").getAsInt());
+                assertEquals(1, projects.get(1).getAsJsonObject().getAsJsonObject("data").get("second").getAsInt());
+                assertNull(collector.headers().getLast().getFirst("Authorization"), "projects authorize themselves");
+            } finally {
+                first.shutdown().join();
+                second.shutdown().join();
+            }
+        }
+    }
+
+    @Test
+    public void testLeaderHandover(@TempDir Path dataFolder) throws Exception {
+        try (var collector = new MockCollector()) {
+            var first = create(collector, FIRST_TOKEN, "first", dataFolder);
+            var second = create(collector, SECOND_TOKEN, "second", dataFolder);
+            try {
+                first.startSubmitting(100, 200, TimeUnit.MILLISECONDS);
+                second.startSubmitting(100, 200, TimeUnit.MILLISECONDS);
+                await(() -> !collector.payloads().isEmpty());
+                assertEquals(List.of(FIRST_TOKEN, SECOND_TOKEN), tokens(collector.lastPayload()));
+
+                first.shutdown().join();
+                var submitted = collector.payloads().size();
+                await(() -> collector.payloads().size() > submitted + 1);
+                assertEquals(List.of(SECOND_TOKEN), tokens(collector.lastPayload()));
+            } finally {
+                second.shutdown().join();
+            }
+        }
+    }
+
+    @Test
+    public void testIncompatibleSettings(@TempDir Path dataFolder) throws Exception {
+        try (var collector = new MockCollector()) {
+            var first = create(collector, FIRST_TOKEN, "first", dataFolder);
+            var second = (MockMetrics) new MockMetrics.Factory()
+                    .token(SECOND_TOKEN)
+                    .url(collector.url())
+                    .batch(true)
+                    .retry(1, Duration.ZERO, Duration.ZERO)
+                    .addChart(Chart.number("second", () -> 1))
+                    .create(dataFolder);
+            try {
+                first.startSubmitting(200, 60_000, TimeUnit.MILLISECONDS);
+                second.startSubmitting(200, 60_000, TimeUnit.MILLISECONDS);
+                await(() -> collector.payloads().size() >= 2);
+
+                var tokens = collector.payloads().stream().map(BatchTest::tokens).toList();
+                assertTrue(tokens.containsAll(List.of(List.of(FIRST_TOKEN), List.of(SECOND_TOKEN))), "separate batches: " + tokens);
+            } finally {
+                first.shutdown().join();
+                second.shutdown().join();
+            }
+        }
+    }
+
+    @Test
+    public void testSlowMemberIsLeftOut(@TempDir Path dataFolder) throws Exception {
+        try (var collector = new MockCollector()) {
+            var first = (MockMetrics) new MockMetrics.Factory()
+                    .token(FIRST_TOKEN)
+                    .url(collector.url())
+                    .batch(true)
+                    .collectionTimeout(Duration.ofMillis(300))
+                    .addChart(Chart.number("first", () -> 1))
+                    .create(dataFolder);
+            var second = create(collector, SECOND_TOKEN, "second", dataFolder);
+            var slow = (MockMetrics) new MockMetrics.Factory()
+                    .token("cccccccccccccccccccccccccccccc")
+                    .url(collector.url())
+                    .batch(true)
+                    .addChart(Chart.number("slow", () -> {
+                        Thread.sleep(3_000);
+                        return 1;
+                    }))
+                    .create(dataFolder);
+            try {
+                first.startSubmitting(100, 60_000, TimeUnit.MILLISECONDS);
+                second.startSubmitting(100, 60_000, TimeUnit.MILLISECONDS);
+                slow.startSubmitting(100, 60_000, TimeUnit.MILLISECONDS);
+                var started = System.nanoTime();
+                await(() -> !collector.payloads().isEmpty());
+
+                assertTrue(System.nanoTime() - started < Duration.ofSeconds(2).toNanos(), "the slow member does not hold up the batch");
+                assertEquals(List.of(FIRST_TOKEN, SECOND_TOKEN), tokens(collector.lastPayload()));
+                assertTrue(first.messages().contains("Batched project data timed out, skipping: cccccccccccccccccccccccccccccc"));
+            } finally {
+                first.shutdown().join();
+                second.shutdown().join();
+                slow.shutdown().join();
+            }
+        }
+    }
+
+    @Test
+    public void testAcrossClassLoaders(@TempDir Path dataFolder) throws Exception {
+        // a plugin shading its own copy of the library
+        try (var collector = new MockCollector(); var loader = new URLClassLoader(classPath(), ClassLoader.getPlatformClassLoader())) {
+            var factoryType = loader.loadClass(MockMetrics.Factory.class.getName());
+            assertNotSame(MockMetrics.Factory.class, factoryType);
+            var chartType = loader.loadClass(Chart.class.getName());
+            var chart = chartType.getMethod("number", String.class, Callable.class)
+                    .invoke(null, "first", (Callable<Number>) () -> 1);
+
+            var factory = factoryType.getConstructor().newInstance();
+            factoryType.getMethod("token", String.class).invoke(factory, FIRST_TOKEN);
+            factoryType.getMethod("url", URI.class).invoke(factory, collector.url());
+            factoryType.getMethod("batch", boolean.class).invoke(factory, true);
+            factoryType.getMethod("addChart", chartType).invoke(factory, chart);
+            var remote = factoryType.getMethod("create", Path.class).invoke(factory, dataFolder);
+            var remoteType = remote.getClass();
+
+            var local = create(collector, SECOND_TOKEN, "second", dataFolder);
+            try {
+                remoteType.getMethod("startSubmitting", int.class, int.class, TimeUnit.class).invoke(remote, 100, 200, TimeUnit.MILLISECONDS);
+                local.startSubmitting(100, 200, TimeUnit.MILLISECONDS);
+                await(() -> !collector.payloads().isEmpty());
+                assertEquals(List.of(FIRST_TOKEN, SECOND_TOKEN), tokens(collector.lastPayload()));
+
+                ((CompletableFuture<?>) remoteType.getMethod("shutdown").invoke(remote)).join();
+                var submitted = collector.payloads().size();
+                await(() -> collector.payloads().size() > submitted + 1);
+                assertEquals(List.of(SECOND_TOKEN), tokens(collector.lastPayload()), "local instance took over");
+            } finally {
+                local.shutdown().join();
+                ((CompletableFuture<?>) remoteType.getMethod("shutdown").invoke(remote)).join();
+            }
+        }
+    }
+
+    private static MockMetrics create(MockCollector collector, String token, String chart, Path dataFolder) throws Exception {
+        return (MockMetrics) new MockMetrics.Factory()
+                .token(token)
+                .url(collector.url())
+                .batch(true)
+                .addChart(Chart.number(chart, () -> 1))
+                .create(dataFolder);
+    }
+
+    private static List<String> tokens(JsonObject payload) {
+        return payload.getAsJsonArray("projects").asList().stream()
+                .map(project -> project.getAsJsonObject().get("token").getAsString())
+                .toList();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (var i = 0; i < 500 && !condition.getAsBoolean(); i++) Thread.sleep(10);
+        assertTrue(condition.getAsBoolean(), "timed out");
+    }
+
+    private static URL[] classPath() {
+        return Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+                .map(entry -> {
+                    try {
+                        return Path.of(entry).toUri().toURL();
+                    } catch (MalformedURLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .toArray(URL[]::new);
+    }
+}
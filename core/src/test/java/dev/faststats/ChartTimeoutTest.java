@@ -0,0 +1,103 @@
+package dev.faststats;
+
+import dev.faststats.core.chart.Chart;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChartTimeoutTest {
+    @Test
+    public void testTimeoutPerChart(@TempDir Path dataFolder) throws IOException {
+        var factory = new MockMetrics.Factory()
+                .token("bba4a14eac38779007a6fda4814381")
+                .chartTimeout(Duration.ofMillis(500))
+                .collectionTimeout(Duration.ofSeconds(30));
+        // more charts than pool threads, queued charts must not be timed out before they started
+        for (var i = 0; i < 12; i++) factory.addChart(Chart.number("slow_" + (char) ('a' + i), () -> {
+            Thread.sleep(200);
+            return 1;
+        }));
+        factory.addChart(Chart.number("timeout", () -> {
+            Thread.sleep(10_000);
+            return 1;
+        }));
+        var metrics = (MockMetrics) factory.create(dataFolder);
+
+        var data = metrics.createData().getAsJsonObject("data");
+        for (var i = 0; i < 12; i++) assertTrue(data.has("slow_" + (char) ('a' + i)), "slow_" + (char) ('a' + i));
+        assertFalse(data.has("timeout"));
+        assertEquals(1, metrics.stats().charts().get("timeout").timeouts());
+        assertEquals(0, metrics.stats().charts().get("slow_a").timeouts());
+    }
+
+    @Test
+    public void testStuckChartsDoNotStarvePool(@TempDir Path dataFolder) throws IOException {
+        var released = new AtomicBoolean();
+        var factory = new MockMetrics.Factory()
+                .token("bba4a14eac38779007a6fda4814381")
+                .chartTimeout(Duration.ofMillis(100))
+                .collectionTimeout(Duration.ofSeconds(5));
+        for (var i = 0; i < 8; i++) factory.addChart(Chart.number("stuck_" + (char) ('a' + i), () -> {
+            while (!released.get()) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException ignored) {
+                    // ignores the interrupt on purpose
+                }
+            }
+            return 1;
+        }));
+        var metrics = (MockMetrics) factory.create(dataFolder);
+
+        try {
+            metrics.createData();
+            var other = (MockMetrics) new MockMetrics.Factory()
+                    .token("bba4a14eac38779007a6fda4814381")
+                    .chartTimeout(Duration.ofMillis(500))
+                    .addChart(Chart.number("healthy", () -> 1))
+                    .create(dataFolder.resolve("other"));
+            var data = other.createData().getAsJsonObject("data");
+            assertEquals(1, data.get("healthy").getAsInt(), "stuck charts of another instance occupy the pool");
+        } finally {
+            released.set(true);
+        }
+    }
+
+    @Test
+    public void testExpiredCachedChartDoesNotTimeOut(@TempDir Path dataFolder) throws Exception {
+        var calls = new AtomicInteger();
+        var release = new CountDownLatch(1);
+        var metrics = (MockMetrics) new MockMetrics.Factory()
+                .token("bba4a14eac38779007a6fda4814381")
+                .chartTimeout(Duration.ofMillis(200))
+                .addChart(Chart.cached(Chart.number("worlds", () -> {
+                    if (calls.get() > 0) release.await();
+                    return calls.incrementAndGet();
+                }), Duration.ofMillis(100)))
+                .create(dataFolder);
+
+        try {
+            assertEquals(1, metrics.createData().getAsJsonObject("data").get("worlds").getAsInt());
+            Thread.sleep(150);
+            assertEquals(1, metrics.createData().getAsJsonObject("data").get("worlds").getAsInt(), "expired data is served while refreshing");
+            assertEquals(0, metrics.stats().charts().get("worlds").timeouts());
+        } finally {
+            release.countDown();
+        }
+        var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (metrics.createData().getAsJsonObject("data").get("worlds").getAsInt() != 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, metrics.createData().getAsJsonObject("data").get("worlds").getAsInt());
+    }
+}
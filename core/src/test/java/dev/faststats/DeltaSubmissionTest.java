@@ -0,0 +1,81 @@
+package dev.faststats;
+
+import dev.faststats.core.chart.Chart;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DeltaSubmissionTest {
+    @Test
+    public void testIncrementalSubmission(@TempDir Path dataFolder) throws IOException {
+        var counter = new AtomicInteger();
+        try (var collector = new MockCollector()) {
+            var metrics = (MockMetrics) new MockMetrics.Factory()
+                    .token("bba4a14eac38779007a6fda4814381")
+                    .url(collector.url())
+                    .incremental(2)
+                    .addChart(Chart.number("counter", counter::get))
+                    .addChart(Chart.string("constant", () -> "value"))
+                    .create(dataFolder);
+
+            metrics.submitData().join();
+            var snapshot = collector.lastPayload();
+            assertTrue(snapshot.get("snapshot").getAsBoolean());
+            assertEquals(0, snapshot.get("sequence").getAsLong());
+            assertTrue(snapshot.getAsJsonObject("data").has("constant"));
+            assertTrue(snapshot.getAsJsonObject("data").has("java_version"));
+
+            counter.incrementAndGet();
+            metrics.submitData().join();
+            var delta = collector.lastPayload();
+            assertFalse(delta.get("snapshot").getAsBoolean());
+            assertEquals(1, delta.get("sequence").getAsLong());
+            assertEquals(1, delta.getAsJsonObject("data").size());
+            assertEquals(1, delta.getAsJsonObject("data").get("counter").getAsInt());
+
+            metrics.submitData().join();
+            assertEquals(0, collector.lastPayload().getAsJsonObject("data").size());
+
+            metrics.submitData().join();
+            assertTrue(collector.lastPayload().get("snapshot").getAsBoolean(), "snapshot after interval");
+
+            collector.statusCode(409);
+            metrics.submitData().join();
+            collector.statusCode(200);
+            metrics.submitData().join();
+            assertTrue(collector.lastPayload().get("snapshot").getAsBoolean(), "snapshot after resync");
+        }
+    }
+
+    @Test
+    public void testUnacknowledgedChanges(@TempDir Path dataFolder) throws IOException {
+        var counter = new AtomicInteger();
+        try (var collector = new MockCollector()) {
+            var metrics = (MockMetrics) new MockMetrics.Factory()
+                    .token("bba4a14eac38779007a6fda4814381")
+                    .url(collector.url())
+                    .incremental(10)
+                    .addChart(Chart.number("counter", counter::get))
+                    .create(dataFolder);
+
+            metrics.submitData().join();
+
+            counter.incrementAndGet();
+            collector.statusCode(500);
+            metrics.submitData().join();
+
+            collector.statusCode(200);
+            metrics.submitData().join();
+            var delta = collector.lastPayload();
+            assertFalse(delta.get("snapshot").getAsBoolean());
+            assertEquals(1, delta.getAsJsonObject("data").get("counter").getAsInt(), "failed changes are resent");
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package dev.faststats;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictTrainer;
+import dev.faststats.core.chart.Chart;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DictionaryTest {
+    @Test
+    public void testDictionaryCompression(@TempDir Path dataFolder) throws IOException {
+        var trainer = new ZstdDictTrainer(1024 * 1024, 4096);
+        for (var i = 0; i < 1000; i++) {
+            var sample = "{\"server_id\":\"%s\",\"data\":{\"java_version\":\"21.0.%d\",\"os_name\":\"Linux\",\"player_count\":%d,\"server_type\":\"Paper\"}}"
+                    .formatted(new UUID(i, i * 31L), i % 10, i);
+            trainer.addSample(sample.getBytes(StandardCharsets.UTF_8));
+        }
+        var dictionary = trainer.trainSamples();
+        var dictionaryId = Long.toUnsignedString(Zstd.getDictIdFromDict(dictionary));
+
+        try (var collector = new MockCollector()) {
+            collector.dictionary(dictionary);
+            var metrics = (MockMetrics) new MockMetrics.Factory()
+                    .token("bba4a14eac38779007a6fda4814381")
+                    .url(collector.url())
+                    .dictionary(dictionary)
+                    .addChart(Chart.number("player_count", () -> 42))
+                    .create(dataFolder);
+
+            metrics.submitData().join();
+            assertEquals(1, collector.payloads().size(), "payload decompresses with the dictionary");
+            assertEquals(dictionaryId, collector.headers().getFirst().getFirst("Zstd-Dictionary-Id"));
+            assertEquals(42, collector.lastPayload().getAsJsonObject("data").get("player_count").getAsInt());
+        }
+    }
+}
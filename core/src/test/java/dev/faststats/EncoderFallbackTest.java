@@ -0,0 +1,56 @@
+package dev.faststats;
+
+import dev.faststats.core.PayloadEncoder;
+import dev.faststats.core.chart.Chart;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class EncoderFallbackTest {
+    @Test
+    public void testFallbackToJson(@TempDir Path dataFolder) throws IOException {
+        var counter = new AtomicInteger();
+        try (var collector = new MockCollector()) {
+            var metrics = (MockMetrics) new MockMetrics.Factory()
+                    .token("bba4a14eac38779007a6fda4814381")
+                    .url(collector.url())
+                    .encoder(PayloadEncoder.BINARY)
+                    .retry(1, Duration.ZERO, Duration.ZERO)
+                    .addChart(Chart.number("counter", counter::incrementAndGet))
+                    .create(dataFolder);
+
+            collector.statusCode(503);
+            metrics.submitData().join();
+            assertEquals(List.of(), collector.payloads(), "binary payload is stored");
+
+            collector.statusCode(200);
+            collector.unsupportedContentTypes(PayloadEncoder.BINARY.contentType());
+            metrics.submitData().join();
+            metrics.submitData().join();
+
+            // the stored and the current payload are transcoded and resent, the last one is encoded as JSON
+            var payloads = collector.payloads();
+            assertEquals(3, payloads.size());
+            for (var i = 0; i < 3; i++) {
+                assertEquals(i + 1, payloads.get(i).getAsJsonObject("data").get("counter").getAsInt());
+            }
+            var contentTypes = collector.headers().stream().map(headers -> headers.getFirst("Content-Type")).toList();
+            assertEquals(List.of(
+                    PayloadEncoder.BINARY.contentType(),
+                    PayloadEncoder.BINARY.contentType(),
+                    PayloadEncoder.JSON.contentType(),
+                    PayloadEncoder.BINARY.contentType(),
+                    PayloadEncoder.JSON.contentType(),
+                    PayloadEncoder.JSON.contentType()
+            ), contentTypes);
+            assertEquals(1, metrics.messages().stream().filter(message -> message.contains("falling back to JSON")).count());
+        }
+    }
+}
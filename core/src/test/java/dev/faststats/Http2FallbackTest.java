@@ -0,0 +1,52 @@
+package dev.faststats;
+
+import dev.faststats.core.chart.Chart;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class Http2FallbackTest {
+    @Test
+    public void testFallbackToHttp1(@TempDir Path dataFolder) throws IOException {
+        try (var collector = new MockCollector()) {
+            var metrics = (MockMetrics) new MockMetrics.Factory()
+                    .token("bba4a14eac38779007a6fda4814381")
+                    .url(collector.url())
+                    .http2(true)
+                    .addChart(Chart.string("constant", () -> "value"))
+                    .create(dataFolder);
+
+            metrics.submitData().join();
+            metrics.submitData().join();
+            assertEquals(2, collector.payloads().size());
+            assertEquals("value", collector.lastPayload().getAsJsonObject("data").get("constant").getAsString());
+
+            // the mock collector only speaks HTTP/1.1, so the h2c upgrade is declined
+            collector.headers().forEach(headers -> assertEquals("h2c", headers.getFirst("Upgrade"), "HTTP/2 requested"));
+            assertEquals(2, metrics.messages().stream().filter(message -> message.endsWith("fell back to HTTP_1_1")).count());
+        }
+    }
+
+    @Test
+    public void testHttp1ByDefault(@TempDir Path dataFolder) throws IOException {
+        try (var collector = new MockCollector()) {
+            var metrics = (MockMetrics) new MockMetrics.Factory()
+                    .token("bba4a14eac38779007a6fda4814381")
+                    .url(collector.url())
+                    .addChart(Chart.string("constant", () -> "value"))
+                    .create(dataFolder);
+
+            metrics.submitData().join();
+            assertNull(collector.headers().getFirst().getFirst("Upgrade"));
+            assertFalse(metrics.messages().stream().anyMatch(message -> message.contains("fell back")));
+            assertTrue(metrics.messages().stream().anyMatch(message -> message.startsWith("Metrics submitted")));
+        }
+    }
+}
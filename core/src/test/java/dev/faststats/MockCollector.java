@@ -0,0 +1,99 @@
+package dev.faststats;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dev.faststats.core.PayloadEncoder;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A local stand-in for the metrics server, recording every submitted payload.
+ */
+@NullMarked
+public class MockCollector implements AutoCloseable {
+    private final List<JsonObject> payloads = new CopyOnWriteArrayList<>();
+    private final List<Headers> headers = new CopyOnWriteArrayList<>();
+    private final HttpServer server;
+    private volatile int statusCode = 200;
+    private volatile byte @Nullable [] dictionary = null;
+    private volatile Set<String> unsupportedContentTypes = Set.of();
+    private volatile Map<String, String> responseHeaders = Map.of();
+
+    public MockCollector() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        headers.add(exchange.getRequestHeaders());
+        var contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (!PayloadEncoder.JSON.contentType().equals(contentType)) {
+            // only JSON payloads are recorded
+            try (exchange) {
+                exchange.getRequestBody().readAllBytes();
+                exchange.sendResponseHeaders(unsupportedContentTypes.contains(contentType) ? 415 : statusCode, -1);
+            }
+            return;
+        }
+        var input = new ZstdInputStream(exchange.getRequestBody());
+        var dictionary = this.dictionary;
+        if (dictionary != null) input.setDict(dictionary);
+        try (exchange; var reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+            payloads.add(JsonParser.parseReader(reader).getAsJsonObject());
+            responseHeaders.forEach(exchange.getResponseHeaders()::add);
+            exchange.sendResponseHeaders(statusCode, -1);
+        }
+    }
+
+    public URI url() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/v1/collect");
+    }
+
+    public void statusCode(int statusCode) {
+        this.statusCode = statusCode;
+    }
+
+    public void responseHeaders(Map<String, String> responseHeaders) {
+        this.responseHeaders = Map.copyOf(responseHeaders);
+    }
+
+    public void dictionary(byte @Nullable [] dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    public void unsupportedContentTypes(String... contentTypes) {
+        this.unsupportedContentTypes = Set.of(contentTypes);
+    }
+
+    public List<JsonObject> payloads() {
+        return payloads;
+    }
+
+    public List<Headers> headers() {
+        return headers;
+    }
+
+    public JsonObject lastPayload() {
+        return payloads.getLast();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -6,18 +6,31 @@ import dev.faststats.core.Token;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 
+import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 @NullMarked
 public class MockMetrics extends SimpleMetrics {
+    private final List<String> messages = new CopyOnWriteArrayList<>();
+
     public MockMetrics(UUID serverId, @Token String token, boolean debug) {
         super(new SimpleMetrics.Config(serverId, true, debug), Set.of(), token, URI.create("http://localhost:5000"), debug);
     }
 
+    private MockMetrics(SimpleMetrics.Factory<?> factory, Path config) throws IOException, IllegalStateException {
+        super(factory, config);
+    }
+
     @Override
     protected void error(String message, @Nullable Throwable throwable) {
+        messages.add(message);
         if (!isDebug()) return;
         System.err.println(message);
         if (throwable != null) throwable.printStackTrace(System.err);
@@ -25,20 +38,50 @@ public class MockMetrics extends SimpleMetrics {
 
     @Override
     protected void warn(String message) {
+        messages.add(message);
         if (isDebug()) System.out.println(message);
     }
 
     @Override
     protected void info(String message) {
+        messages.add(message);
         if (isDebug()) System.out.println(message);
     }
 
+    /**
+     * All messages logged by this instance, regardless of debug mode.
+     */
+    public List<String> messages() {
+        return messages;
+    }
+
     @Override
     public JsonObject createData() {
         return super.createData();
     }
 
+    @Override
+    public CompletableFuture<Void> submitData() {
+        return super.submitData();
+    }
+
+    @Override
+    public void startSubmitting(int initialDelay, int period, TimeUnit unit) {
+        super.startSubmitting(initialDelay, period, unit);
+    }
+
+    @Override
+    protected void appendServerData(JsonObject charts) {
+    }
+
     @Override
     protected void appendDefaultData(JsonObject charts) {
     }
+
+    public static final class Factory extends SimpleMetrics.Factory<Path> {
+        @Override
+        public MockMetrics create(Path dataFolder) throws IOException, IllegalStateException {
+            return new MockMetrics(this, dataFolder.resolve("config.json"));
+        }
+    }
 }
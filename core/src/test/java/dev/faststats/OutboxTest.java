@@ -0,0 +1,76 @@
+package dev.faststats;
+
+import dev.faststats.core.chart.Chart;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OutboxTest {
+    @Test
+    public void testReplay(@TempDir Path dataFolder) throws IOException {
+        var counter = new AtomicInteger();
+        try (var collector = new MockCollector()) {
+            var metrics = (MockMetrics) new MockMetrics.Factory()
+                    .token("bba4a14eac38779007a6fda4814381")
+                    .url(collector.url())
+                    .retry(1, Duration.ZERO, Duration.ZERO)
+                    .addChart(Chart.number("counter", counter::incrementAndGet))
+                    .create(dataFolder);
+
+            collector.statusCode(503);
+            metrics.submitData().join();
+            metrics.submitData().join();
+            assertEquals(3, collector.payloads().size(), "stored payload is replayed before the next submission");
+            assertEquals(2, outboxEntries(dataFolder));
+
+            collector.statusCode(200);
+            metrics.submitData().join();
+            assertEquals(0, outboxEntries(dataFolder));
+
+            var payloads = collector.payloads();
+            assertEquals(6, payloads.size());
+            for (var i = 3; i < 6; i++) {
+                assertEquals(i - 2, payloads.get(i).getAsJsonObject("data").get("counter").getAsInt(), "replayed in order");
+            }
+        }
+    }
+
+    @Test
+    public void testEviction(@TempDir Path dataFolder) throws IOException {
+        try (var collector = new MockCollector()) {
+            var metrics = (MockMetrics) new MockMetrics.Factory()
+                    .token("bba4a14eac38779007a6fda4814381")
+                    .url(collector.url())
+                    .retry(1, Duration.ZERO, Duration.ZERO)
+                    .outboxSize(1024)
+                    .create(dataFolder);
+
+            collector.statusCode(500);
+            for (var i = 0; i < 20; i++) metrics.submitData().join();
+
+            var size = 0L;
+            try (var files = Files.list(outbox(dataFolder))) {
+                for (var file : files.toList()) size += Files.size(file);
+            }
+            assertTrue(size <= 1024, "outbox exceeds size limit: " + size);
+        }
+    }
+
+    private static Path outbox(Path dataFolder) {
+        return dataFolder.resolve("outbox").resolve("bba4a14eac38779007a6fda4814381");
+    }
+
+    private static long outboxEntries(Path dataFolder) throws IOException {
+        try (var files = Files.list(outbox(dataFolder))) {
+            return files.count();
+        }
+    }
+}
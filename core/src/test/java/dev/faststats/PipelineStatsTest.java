@@ -0,0 +1,72 @@
+package dev.faststats;
+
+import dev.faststats.core.chart.Chart;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PipelineStatsTest {
+    @Test
+    public void testSubmissionStats(@TempDir Path dataFolder) throws IOException {
+        try (var collector = new MockCollector()) {
+            var metrics = (MockMetrics) new MockMetrics.Factory()
+                    .token("bba4a14eac38779007a6fda4814381")
+                    .url(collector.url())
+                    .addChart(Chart.string("constant", () -> "value"))
+                    .addChart(Chart.longValue("primitive", () -> 42))
+                    .addChart(Chart.number("failing", () -> {
+                        throw new IllegalStateException("broken chart");
+                    }))
+                    .create(dataFolder);
+
+            metrics.submitData().join();
+            collector.statusCode(400);
+            metrics.submitData().join();
+
+            var stats = metrics.stats();
+            assertEquals(2, stats.payloads());
+            assertTrue(stats.compressedBytes() > 0);
+            assertTrue(stats.uncompressedBytes() > 0);
+            assertEquals((double) stats.uncompressedBytes() / stats.compressedBytes(), stats.compressionRatio());
+            assertEquals(2, stats.responses());
+            assertTrue(stats.maxLatency().compareTo(stats.averageLatency()) >= 0);
+            assertEquals(Map.of(200, 1L, 400, 1L), stats.statusCodes());
+            assertEquals(0, stats.failedRequests());
+
+            assertEquals(2, stats.charts().get("constant").computations());
+            assertEquals(2, stats.charts().get("primitive").computations());
+            assertEquals(2, stats.charts().get("failing").failures());
+            assertEquals(0, stats.charts().get("constant").failures());
+        }
+    }
+
+    @Test
+    public void testDroppedSubmissions(@TempDir Path dataFolder) throws IOException {
+        try (var collector = new MockCollector()) {
+            var metrics = (MockMetrics) new MockMetrics.Factory()
+                    .token("bba4a14eac38779007a6fda4814381")
+                    .url(collector.url())
+                    .retry(1, Duration.ZERO, Duration.ZERO)
+                    .outboxSize(0)
+                    .addChart(Chart.string("constant", () -> "value"))
+                    .create(dataFolder);
+
+            collector.statusCode(500);
+            metrics.submitData().join();
+            collector.statusCode(503);
+            metrics.submitData().join();
+
+            var stats = metrics.stats();
+            assertEquals(0, stats.retries());
+            assertEquals(2, stats.droppedSubmissions());
+            assertEquals(Map.of(500, 1L, 503, 1L), stats.statusCodes());
+        }
+    }
+}
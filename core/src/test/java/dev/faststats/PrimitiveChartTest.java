@@ -0,0 +1,38 @@
+package dev.faststats;
+
+import dev.faststats.core.chart.Chart;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class PrimitiveChartTest {
+    @Test
+    public void testPrimitiveCharts(@TempDir Path dataFolder) throws IOException {
+        var metrics = (MockMetrics) new MockMetrics.Factory()
+                .token("bba4a14eac38779007a6fda4814381")
+                .addChart(Chart.longValue("entity_count", () -> 1234))
+                .addChart(Chart.doubleValue("tps", () -> 19.5))
+                .addChart(Chart.boolValue("whitelist", () -> true))
+                .addChart(Chart.longValue("broken", () -> {
+                    throw new IllegalStateException();
+                }))
+                .addChart(Chart.doubleValue("not_a_number", () -> Double.NaN))
+                .addChart(Chart.doubleValue("infinity", () -> Double.POSITIVE_INFINITY))
+                .addChart(Chart.number("negative_infinity", () -> Double.NEGATIVE_INFINITY))
+                .create(dataFolder);
+
+        var data = metrics.createData().getAsJsonObject("data");
+        assertEquals(1234, data.get("entity_count").getAsLong());
+        assertEquals(19.5, data.get("tps").getAsDouble());
+        assertEquals(true, data.get("whitelist").getAsBoolean());
+        assertFalse(data.has("broken"));
+        assertFalse(data.has("not_a_number"));
+        assertFalse(data.has("infinity"));
+        assertFalse(data.has("negative_infinity"));
+    }
+}
@@ -0,0 +1,48 @@
+package dev.faststats;
+
+import dev.faststats.core.chart.Chart;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RetryTest {
+    @Test
+    public void testAttempts(@TempDir Path dataFolder) throws Exception {
+        try (var collector = new MockCollector()) {
+            var metrics = (MockMetrics) new MockMetrics.Factory()
+                    .token("bba4a14eac38779007a6fda4814381")
+                    .url(collector.url())
+                    .retry(3, Duration.ofMillis(1), Duration.ofMillis(1))
+                    .addChart(Chart.string("constant", () -> "value"))
+                    .create(dataFolder);
+            try {
+                // registers with the scheduler without submitting during the test
+                metrics.startSubmitting(1, 1, TimeUnit.HOURS);
+                collector.statusCode(503);
+                metrics.submitData().join();
+
+                var outbox = dataFolder.resolve("outbox").resolve("bba4a14eac38779007a6fda4814381");
+                for (var i = 0; i < 500 && outboxEntries(outbox) == 0; i++) Thread.sleep(10);
+                assertEquals(1, outboxEntries(outbox), "stored after the last attempt");
+                assertEquals(3, collector.payloads().size(), "first attempt and two retries");
+                assertEquals(2, metrics.stats().retries());
+            } finally {
+                metrics.shutdown().join();
+            }
+        }
+    }
+
+    private static long outboxEntries(Path outbox) throws IOException {
+        if (!Files.isDirectory(outbox)) return 0;
+        try (var files = Files.list(outbox)) {
+            return files.count();
+        }
+    }
+}
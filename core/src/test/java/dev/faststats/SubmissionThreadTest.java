@@ -0,0 +1,85 @@
+package dev.faststats;
+
+import dev.faststats.core.chart.Chart;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SubmissionThreadTest {
+    @Test
+    public void testCollectedOffScheduler(@TempDir Path dataFolder) throws Exception {
+        var thread = new CompletableFuture<String>();
+        try (var collector = new MockCollector()) {
+            var metrics = (MockMetrics) new MockMetrics.Factory()
+                    .token("bba4a14eac38779007a6fda4814381")
+                    .url(collector.url())
+                    // primitive charts are written on the collecting thread
+                    .addChart(Chart.longValue("thread", () -> {
+                        thread.complete(Thread.currentThread().getName());
+                        return 1;
+                    }))
+                    .create(dataFolder);
+            try {
+                metrics.startSubmitting(0, 1, TimeUnit.HOURS);
+                assertEquals("metrics-collector", thread.get(5, TimeUnit.SECONDS));
+            } finally {
+                metrics.shutdown().join();
+            }
+        }
+    }
+
+    @Test
+    public void testSampledOffScheduler(@TempDir Path dataFolder) throws Exception {
+        var thread = new CompletableFuture<String>();
+        var metrics = (MockMetrics) new MockMetrics.Factory()
+                .token("bba4a14eac38779007a6fda4814381")
+                .addChart(Chart.gauge("players", () -> {
+                    thread.complete(Thread.currentThread().getName());
+                    return 1;
+                }, Duration.ofMillis(50)))
+                .create(dataFolder);
+        try {
+            metrics.startSubmitting(1, 1, TimeUnit.HOURS);
+            assertEquals("metrics-collector", thread.get(5, TimeUnit.SECONDS));
+        } finally {
+            metrics.shutdown().join();
+        }
+    }
+
+    @Test
+    public void testNoRetryAfterShutdown(@TempDir Path dataFolder) throws Exception {
+        try (var collector = new MockCollector()) {
+            var metrics = (MockMetrics) new MockMetrics.Factory()
+                    .token("bba4a14eac38779007a6fda4814381")
+                    .url(collector.url())
+                    .retry(3, Duration.ofMillis(50), Duration.ofMillis(50))
+                    .create(dataFolder);
+            // keeps the hub running after the first instance shut down
+            var other = (MockMetrics) new MockMetrics.Factory()
+                    .token("bba4a14eac38779007a6fda4814381")
+                    .create(dataFolder.resolve("other"));
+            try {
+                other.startSubmitting(1, 1, TimeUnit.HOURS);
+                metrics.startSubmitting(1, 1, TimeUnit.HOURS);
+                collector.statusCode(503);
+                metrics.submitData();
+                metrics.shutdown().join();
+                Thread.sleep(300);
+
+                assertEquals(1, collector.payloads().size(), "no retry after shutdown");
+                try (var files = Files.list(dataFolder.resolve("outbox").resolve("bba4a14eac38779007a6fda4814381"))) {
+                    assertEquals(1, files.count(), "stored for later submission");
+                }
+            } finally {
+                other.shutdown().join();
+            }
+        }
+    }
+}
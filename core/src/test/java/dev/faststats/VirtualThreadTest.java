@@ -0,0 +1,27 @@
+package dev.faststats;
+
+import dev.faststats.core.chart.Chart;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class VirtualThreadTest {
+    @Test
+    public void testChartsRunOnVirtualThreads(@TempDir Path dataFolder) throws IOException {
+        var metrics = (MockMetrics) new MockMetrics.Factory()
+                .token("bba4a14eac38779007a6fda4814381")
+                .virtualThreads(true)
+                .addChart(Chart.bool("virtual", () -> Thread.currentThread().isVirtual()))
+                .create(dataFolder);
+        try {
+            var data = metrics.createData().getAsJsonObject("data");
+            assertEquals(true, data.get("virtual").getAsBoolean());
+        } finally {
+            metrics.shutdown().join();
+        }
+    }
+}
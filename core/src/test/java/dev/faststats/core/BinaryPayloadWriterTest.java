@@ -0,0 +1,154 @@
+package dev.faststats.core;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BinaryPayloadWriterTest {
+    private static final Gson GSON = new Gson();
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        var json = JsonParser.parseString("""
+                {
+                  "server_id": "c5d4a2d2-9b1b-4f0e-9a4f-1b2c3d4e5f60",
+                  "data": {
+                    "core_count": 8,
+                    "player_count": -3,
+                    "online_mode": true,
+                    "tps": 19.95,
+                    "large": 9007199254740993,
+                    "plugins": ["a", "b", "a"],
+                    "versions": { "a": 1, "b": 2 }
+                  }
+                }""");
+
+        var binary = encode(json);
+        assertArrayEquals(BinaryPayloadWriter.MAGIC, Arrays.copyOf(binary, 3));
+        assertEquals(json, decode(binary));
+        assertTrue(binary.length < json.toString().getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    public void testManyRepeatedKeys() throws IOException {
+        var json = new JsonArray();
+        for (var i = 0; i < 300; i++) {
+            var object = new JsonObject();
+            object.addProperty("key_" + i % 150, i);
+            object.addProperty("value", "key_" + i % 20);
+            json.add(object);
+        }
+        assertEquals(json, decode(encode(json)));
+    }
+
+    @Test
+    public void testTranscodeToJson() throws IOException {
+        var json = JsonParser.parseString("""
+                { "a": 1, "b": [true, false, null, "a", -2.5], "c": { "a": "b", "d": 9007199254740993 }, "e": {} }""");
+        var output = new StringWriter();
+        BinaryPayloadReader.transcode(new ByteArrayInputStream(encode(json)), new JsonWriter(output));
+        assertEquals(json, JsonParser.parseString(output.toString()));
+    }
+
+    @Test
+    public void testOmitsNullMembers() throws IOException {
+        var json = new JsonObject();
+        json.add("missing", JsonNull.INSTANCE);
+        json.addProperty("present", 1);
+        var expected = new JsonObject();
+        expected.addProperty("present", 1);
+        assertEquals(expected, decode(encode(json)));
+    }
+
+    private static byte[] encode(JsonElement element) throws IOException {
+        var out = new ByteArrayOutputStream();
+        var writer = PayloadEncoder.BINARY.createWriter(out);
+        GSON.toJson(element, writer);
+        writer.flush();
+        return out.toByteArray();
+    }
+
+    private static JsonElement decode(byte[] bytes) throws IOException {
+        var in = new DataInputStream(new ByteArrayInputStream(bytes));
+        in.skipNBytes(BinaryPayloadWriter.MAGIC.length);
+        assertEquals(BinaryPayloadWriter.VERSION, in.read());
+        return readValue(in, in.read(), new ArrayList<>());
+    }
+
+    private static JsonElement readValue(DataInputStream in, int tag, List<String> strings) throws IOException {
+        return switch (tag) {
+            case BinaryPayloadWriter.NULL -> JsonNull.INSTANCE;
+            case BinaryPayloadWriter.FALSE -> new JsonPrimitive(false);
+            case BinaryPayloadWriter.TRUE -> new JsonPrimitive(true);
+            case BinaryPayloadWriter.INTEGER -> {
+                var zigzag = readVarint(in);
+                yield new JsonPrimitive((zigzag >>> 1) ^ -(zigzag & 1));
+            }
+            case BinaryPayloadWriter.DECIMAL -> new JsonPrimitive(in.readDouble());
+            case BinaryPayloadWriter.STRING -> new JsonPrimitive(readString(in, strings));
+            case BinaryPayloadWriter.BEGIN_OBJECT -> {
+                var object = new JsonObject();
+                long key;
+                while ((key = readVarint(in)) != 0) {
+                    var name = readString(in, strings, key - 1);
+                    object.add(name, readValue(in, in.read(), strings));
+                }
+                yield object;
+            }
+            case BinaryPayloadWriter.BEGIN_ARRAY -> {
+                var array = new JsonArray();
+                int next;
+                while ((next = in.read()) != BinaryPayloadWriter.END_ARRAY) array.add(readValue(in, next, strings));
+                yield array;
+            }
+            default -> throw new IOException("Unknown tag " + tag);
+        };
+    }
+
+    private static String readString(DataInputStream in, List<String> strings) throws IOException {
+        return readString(in, strings, readVarint(in));
+    }
+
+    private static String readString(DataInputStream in, List<String> strings, long reference) throws IOException {
+        if (reference != 0) return strings.get((int) reference - 1);
+        var string = new String(in.readNBytes((int) readVarint(in)), StandardCharsets.UTF_8);
+        strings.add(string);
+        return string;
+    }
+
+    private static long readVarint(DataInputStream in) throws IOException {
+        return readVarint(in, in.read());
+    }
+
+    private static long readVarint(DataInputStream in, int first) throws IOException {
+        long value = first & 0x7F;
+        var shift = 7;
+        var current = first;
+        while ((current & 0x80) != 0) {
+            current = in.read();
+            value |= (long) (current & 0x7F) << shift;
+            shift += 7;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,52 @@
+package dev.faststats.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CircuitBreakerTest {
+    @Test
+    public void testOpensAfterThreshold() {
+        var breaker = new CircuitBreaker(3, Duration.ofHours(1));
+        assertFalse(breaker.record(false));
+        assertFalse(breaker.record(false));
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.record(false), "third failure opens the circuit");
+        assertTrue(breaker.isOpen());
+        assertFalse(breaker.tryAcquire());
+        assertFalse(breaker.record(false), "already open");
+    }
+
+    @Test
+    public void testSuccessResetsFailures() {
+        var breaker = new CircuitBreaker(2, Duration.ofHours(1));
+        breaker.record(false);
+        breaker.record(true);
+        assertFalse(breaker.record(false));
+        assertFalse(breaker.isOpen());
+    }
+
+    @Test
+    public void testProbe() throws InterruptedException {
+        var breaker = new CircuitBreaker(1, Duration.ofMillis(50));
+        assertTrue(breaker.record(false));
+        assertFalse(breaker.tryAcquire(), "open");
+
+        Thread.sleep(60);
+        assertTrue(breaker.tryAcquire(), "probe after the open duration");
+        assertFalse(breaker.tryAcquire(), "single probe");
+        breaker.record(false);
+        assertTrue(breaker.isOpen(), "failed probe keeps the circuit open");
+        assertFalse(breaker.tryAcquire(), "open for another open duration");
+
+        Thread.sleep(60);
+        assertTrue(breaker.tryAcquire(), "probe after the open duration");
+        breaker.record(true);
+        assertFalse(breaker.isOpen(), "successful probe closes the circuit");
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+    }
+}
@@ -0,0 +1,104 @@
+package dev.faststats.core;
+
+import dev.faststats.MockCollector;
+import dev.faststats.MockMetrics;
+import dev.faststats.core.chart.Chart;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PacingTest {
+    private static final Instant NOW = Instant.parse("2026-01-01T12:00:00Z");
+
+    @Test
+    public void testRetryAfterSeconds() {
+        assertEquals(Optional.of(Duration.ofMinutes(5)), SimpleMetrics.parseRetryAfter("300", NOW));
+        assertEquals(Optional.of(Duration.ofMinutes(5)), SimpleMetrics.parseRetryAfter(" 300 ", NOW));
+    }
+
+    @Test
+    public void testRetryAfterDate() {
+        var date = DateTimeFormatter.RFC_1123_DATE_TIME.format(NOW.plus(Duration.ofMinutes(10)).atZone(ZoneOffset.UTC));
+        assertEquals(Optional.of(Duration.ofMinutes(10)), SimpleMetrics.parseRetryAfter(date, NOW));
+
+        var past = DateTimeFormatter.RFC_1123_DATE_TIME.format(NOW.minus(Duration.ofMinutes(10)).atZone(ZoneOffset.UTC));
+        assertEquals(Optional.of(Duration.ZERO), SimpleMetrics.parseRetryAfter(past, NOW));
+    }
+
+    @Test
+    public void testMalformed() {
+        assertEquals(Optional.empty(), SimpleMetrics.parseRetryAfter("soon", NOW));
+        assertEquals(Optional.empty(), SimpleMetrics.parseSeconds(""));
+        assertEquals(Optional.empty(), SimpleMetrics.parseSeconds("1.5"));
+    }
+
+    @Test
+    public void testClamping() {
+        assertEquals(Optional.of(Duration.ofMinutes(1)), SimpleMetrics.parseSeconds("5"));
+        assertEquals(Optional.of(Duration.ofMinutes(1)), SimpleMetrics.parseSeconds("-5"));
+        assertEquals(Optional.of(Duration.ofDays(1)), SimpleMetrics.parseSeconds("1000000"));
+        assertEquals(Optional.of(Duration.ofDays(1)), SimpleMetrics.parseRetryAfter(String.valueOf(Long.MAX_VALUE), NOW));
+        var date = DateTimeFormatter.RFC_1123_DATE_TIME.format(NOW.plus(Duration.ofDays(7)).atZone(ZoneOffset.UTC));
+        assertEquals(Optional.of(Duration.ofDays(1)), SimpleMetrics.parseRetryAfter(date, NOW));
+    }
+
+    @Test
+    public void testNextSubmitIn(@TempDir Path dataFolder) throws IOException {
+        try (var collector = new MockCollector()) {
+            var metrics = (MockMetrics) new MockMetrics.Factory()
+                    .token("bba4a14eac38779007a6fda4814381")
+                    .url(collector.url())
+                    .create(dataFolder);
+
+            collector.responseHeaders(Map.of("Next-Submit-In", "600"));
+            metrics.submitData().join();
+            assertTrue(metrics.messages().contains("Metrics server asked to submit next in 600 seconds"));
+
+            collector.statusCode(503);
+            collector.responseHeaders(Map.of("Retry-After", "120"));
+            metrics.submitData().join();
+            assertTrue(metrics.messages().contains("Metrics server asked to retry after 120 seconds"));
+        }
+    }
+
+    @Test
+    public void testNoDrift(@TempDir Path dataFolder) throws Exception {
+        var runs = new CopyOnWriteArrayList<Long>();
+        try (var collector = new MockCollector()) {
+            var metrics = (MockMetrics) new MockMetrics.Factory()
+                    .token("bba4a14eac38779007a6fda4814381")
+                    .url(collector.url())
+                    .addChart(Chart.number("slow", () -> {
+                        runs.add(System.nanoTime());
+                        Thread.sleep(100);
+                        return 1;
+                    }))
+                    .create(dataFolder);
+            try {
+                metrics.startSubmitting(0, 200, TimeUnit.MILLISECONDS);
+                for (var i = 0; i < 300 && runs.size() < 6; i++) Thread.sleep(10);
+            } finally {
+                metrics.shutdown().join();
+            }
+        }
+
+        // rescheduling after completion would space the runs 300ms apart
+        List<Long> first = List.copyOf(runs).subList(0, 6);
+        var spacing = TimeUnit.NANOSECONDS.toMillis(first.getLast() - first.getFirst()) / 5;
+        assertTrue(spacing < 260, "average spacing " + spacing + "ms");
+    }
+}
@@ -0,0 +1,71 @@
+package dev.faststats.core;
+
+import com.github.luben.zstd.ZstdInputStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PayloadCompressorTest {
+    @Test
+    public void testReuse() throws IOException {
+        var compressor = new PayloadCompressor();
+        try {
+            var random = new Random(42);
+            for (var size : new int[]{0, 17, 8192, 100_000, 300}) {
+                var data = new byte[size];
+                for (var i = 0; i < size; i++) data[i] = (byte) ('a' + random.nextInt(4));
+
+                compressor.begin(null);
+                compressor.write(data, 0, data.length);
+                var compressedSize = compressor.finish();
+
+                var compressed = publish(compressor);
+                assertEquals(compressedSize, compressed.length);
+                assertArrayEquals(data, decompress(compressed), "payload of " + size + " bytes");
+            }
+        } finally {
+            compressor.free();
+        }
+    }
+
+    private static byte[] publish(PayloadCompressor compressor) {
+        var out = new ByteArrayOutputStream();
+        compressor.publisher().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                var bytes = new byte[item.remaining()];
+                item.get(bytes);
+                out.writeBytes(bytes);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                throw new AssertionError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        return out.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] compressed) throws IOException {
+        try (var in = new ZstdInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+}
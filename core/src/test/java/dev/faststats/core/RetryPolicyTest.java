@@ -0,0 +1,51 @@
+package dev.faststats.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RetryPolicyTest {
+    private final RetryPolicy policy = new RetryPolicy(5, Duration.ofMillis(100), Duration.ofSeconds(1));
+
+    @Test
+    public void testBackoffBounds() {
+        for (var i = 0; i < 1000; i++) {
+            assertBetween(0, 100, policy.delay(1));
+            assertBetween(0, 200, policy.delay(2));
+            assertBetween(0, 400, policy.delay(3));
+            assertBetween(0, 800, policy.delay(4));
+            assertBetween(0, 1000, policy.delay(5));
+            assertBetween(0, 1000, policy.delay(100));
+        }
+    }
+
+    @Test
+    public void testFullJitter() {
+        var delays = new HashSet<Long>();
+        long min = Long.MAX_VALUE, max = 0;
+        for (var i = 0; i < 1000; i++) {
+            var delay = policy.delay(4);
+            delays.add(delay);
+            min = Math.min(min, delay);
+            max = Math.max(max, delay);
+        }
+        assertTrue(delays.size() > 100, "delays are spread: " + delays.size());
+        assertTrue(min < 200, "delays reach down towards zero: " + min);
+        assertTrue(max > 600, "delays reach up towards the backoff: " + max);
+    }
+
+    @Test
+    public void testZeroDelay() {
+        var immediate = new RetryPolicy(3, Duration.ZERO, Duration.ZERO);
+        assertEquals(0, immediate.delay(1));
+        assertEquals(0, immediate.delay(2));
+    }
+
+    private static void assertBetween(long min, long max, long actual) {
+        assertTrue(actual >= min && actual <= max, actual + " not in [" + min + ", " + max + "]");
+    }
+}
@@ -0,0 +1,161 @@
+package dev.faststats.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.lang.ref.WeakReference;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SharedResourcesTest {
+    @Test
+    public void testSharedAcrossClassLoaders() throws Exception {
+        // a plugin shading its own copy of the library
+        try (var loader = new URLClassLoader(classPath(), ClassLoader.getPlatformClassLoader())) {
+            var type = loader.loadClass(SharedResources.class.getName());
+            assertNotSame(SharedResources.class, type);
+            var other = invoke(type, null, "lookup");
+
+            var shared = SharedResources.lookup();
+            shared.acquire();
+            invoke(type, other, "acquire");
+            try {
+                var scheduler = shared.scheduler();
+                assertSame(scheduler, invoke(type, other, "scheduler"));
+                assertSame(shared.httpClient(), (HttpClient) invoke(type, other, "httpClient"));
+                assertSame(shared.chartExecutor(), invoke(type, other, "chartExecutor"));
+
+                invoke(type, other, "release");
+                assertFalse(scheduler.isShutdown(), "still used by this class loader");
+                assertSame(scheduler, (ScheduledExecutorService) invoke(type, other, "scheduler"));
+            } finally {
+                shared.release();
+            }
+        }
+    }
+
+    @Test
+    public void testSystemPropertiesUntouched() {
+        var shared = SharedResources.lookup();
+        shared.acquire();
+        try {
+            shared.scheduler();
+            shared.httpClient();
+            assertDoesNotThrow(() -> System.getProperties().store(new ByteArrayOutputStream(), null));
+            assertDoesNotThrow(() -> System.getProperties().list(new PrintStream(new ByteArrayOutputStream())));
+        } finally {
+            shared.release();
+        }
+    }
+
+    @Test
+    public void testCollectedBatchMembersAreRemoved() throws Exception {
+        var shared = SharedResources.lookup();
+        shared.acquire();
+        try {
+            var callbacks = new WeakReference<Map<String, Object>>(new HashMap<>(Map.of("data", (Callable<String>) () -> "{}")));
+            shared.join("unloaded", Map.of("token", "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaa", "callbacks", callbacks));
+            for (var i = 0; i < 100 && callbacks.get() != null; i++) {
+                System.gc();
+                Thread.sleep(10);
+            }
+
+            var other = SharedResources.lookup();
+            other.acquire();
+            other.release();
+            assertTrue(shared.members("unloaded").isEmpty());
+        } finally {
+            shared.release();
+        }
+    }
+
+    @Test
+    public void testUnloadedClassLoaderIsCollectable(@TempDir Path dataFolder) throws Exception {
+        var shared = SharedResources.lookup();
+        shared.acquire();
+        var occupied = 0;
+        try {
+            // occupy all request slots, so the submission of the plugin stays queued
+            for (; occupied < 8; occupied++) shared.dispatch(() -> {
+            }, () -> {
+            });
+
+            var loader = runPlugin(dataFolder);
+            for (var i = 0; i < 100 && loader.get() != null; i++) {
+                System.gc();
+                Thread.sleep(10);
+            }
+            assertNull(loader.get(), "class loader of the unloaded plugin is still reachable");
+        } finally {
+            for (var i = 0; i < occupied; i++) shared.dispatchNext();
+            shared.release();
+        }
+    }
+
+    /**
+     * Loads a plugin shading its own copy of the library, starts submitting with a queued request and a pending timer,
+     * then shuts it down and closes its class loader.
+     */
+    @SuppressWarnings("unchecked")
+    private static WeakReference<ClassLoader> runPlugin(Path dataFolder) throws Exception {
+        var loader = new URLClassLoader(classPath(), ClassLoader.getPlatformClassLoader());
+        var factoryType = loader.loadClass("dev.faststats.MockMetrics$Factory");
+        var factory = factoryType.getConstructor().newInstance();
+        factoryType.getMethod("token", String.class).invoke(factory, "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaa");
+        factoryType.getMethod("url", URI.class).invoke(factory, URI.create("http://127.0.0.1:1/v1/collect"));
+        var metrics = factoryType.getMethod("create", Path.class).invoke(factory, dataFolder);
+        var metricsType = metrics.getClass();
+
+        metricsType.getMethod("startSubmitting", int.class, int.class, TimeUnit.class).invoke(metrics, 0, 1, TimeUnit.DAYS);
+        var messages = (List<String>) metricsType.getMethod("messages").invoke(metrics);
+        for (var i = 0; i < 500 && messages.stream().noneMatch(message -> message.startsWith("Compressed size")); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(messages.stream().anyMatch(message -> message.startsWith("Compressed size")), "submission started");
+        Thread.sleep(100);
+
+        ((CompletableFuture<?>) metricsType.getMethod("shutdown").invoke(metrics)).get(5, TimeUnit.SECONDS);
+        loader.close();
+        return new WeakReference<>(loader);
+    }
+
+    private static Object invoke(Class<?> type, Object target, String name) throws ReflectiveOperationException {
+        var method = type.getDeclaredMethod(name);
+        method.setAccessible(true);
+        return method.invoke(target);
+    }
+
+    private static URL[] classPath() {
+        return Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+                .map(entry -> {
+                    try {
+                        return Path.of(entry).toUri().toURL();
+                    } catch (MalformedURLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .toArray(URL[]::new);
+    }
+}
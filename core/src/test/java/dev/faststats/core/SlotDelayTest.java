@@ -0,0 +1,35 @@
+package dev.faststats.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SlotDelayTest {
+    private static final long PERIOD = TimeUnit.MINUTES.toMillis(30);
+
+    @Test
+    public void testStableAcrossRestarts() {
+        var serverId = UUID.randomUUID();
+        var now = System.currentTimeMillis();
+        var delay = SimpleMetrics.slotDelay(serverId, "token", PERIOD, now);
+        assertTrue(delay >= 0 && delay < PERIOD, "delay " + delay);
+
+        var later = now + 12_345;
+        var restarted = SimpleMetrics.slotDelay(serverId, "token", PERIOD, later);
+        assertEquals(Math.floorMod(now + delay, PERIOD), Math.floorMod(later + restarted, PERIOD));
+    }
+
+    @Test
+    public void testSpread() {
+        var buckets = new int[10];
+        for (var i = 0; i < 10_000; i++) {
+            var delay = SimpleMetrics.slotDelay(UUID.randomUUID(), "token", PERIOD, 0);
+            buckets[(int) (delay * buckets.length / PERIOD)]++;
+        }
+        for (var bucket : buckets) assertTrue(bucket > 800 && bucket < 1200, "bucket " + bucket);
+    }
+}
@@ -0,0 +1,86 @@
+package dev.faststats.core.chart;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class CachedChartTest {
+    @Test
+    public void testStaleWhileRevalidate() throws Exception {
+        var calls = new AtomicInteger();
+        try (var executor = Executors.newSingleThreadExecutor()) {
+            var chart = Chart.cached(Chart.number("world_count", calls::incrementAndGet), Duration.ofMillis(500), executor);
+
+            assertEquals(1, chart.getData().orElseThrow().getAsInt());
+            assertEquals(1, chart.getData().orElseThrow().getAsInt());
+            assertEquals(1, calls.get());
+
+            Thread.sleep(600);
+            assertEquals(1, chart.getData().orElseThrow().getAsInt());
+
+            var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (chart.getData().orElseThrow().getAsInt() != 2 && System.nanoTime() < deadline) Thread.sleep(10);
+            assertEquals(2, chart.getData().orElseThrow().getAsInt());
+            assertEquals(2, calls.get());
+        }
+    }
+
+    @Test
+    public void testRefreshInBackground() throws Exception {
+        var calls = new AtomicInteger();
+        var release = new CountDownLatch(1);
+        var refreshThread = new CompletableFuture<String>();
+        var chart = Chart.cached(Chart.number("world_count", () -> {
+            if (calls.get() > 0) {
+                refreshThread.complete(Thread.currentThread().getName());
+                release.await();
+            }
+            return calls.incrementAndGet();
+        }), Duration.ofMillis(100));
+
+        try (var executor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("refresher").factory())) {
+            assertEquals(1, chart.getData(executor, (message, throwable) -> fail(message)).orElseThrow().getAsInt());
+
+            Thread.sleep(150);
+            assertEquals(1, chart.getData(executor, (message, throwable) -> fail(message)).orElseThrow().getAsInt(), "expired data is served");
+            assertEquals("refresher", refreshThread.get(5, TimeUnit.SECONDS));
+
+            release.countDown();
+            var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (chart.getData().orElseThrow().getAsInt() != 2 && System.nanoTime() < deadline) Thread.sleep(10);
+            assertEquals(2, chart.getData().orElseThrow().getAsInt());
+        }
+    }
+
+    @Test
+    public void testStaleOnFailure() throws Exception {
+        var calls = new AtomicInteger();
+        var failing = new AtomicBoolean();
+        var errors = new ArrayList<String>();
+        var chart = Chart.cached(Chart.number("world_count", () -> {
+            if (failing.get()) throw new IllegalStateException("broken chart");
+            return calls.incrementAndGet();
+        }), Duration.ofMillis(100));
+
+        assertEquals(1, chart.getData(Runnable::run, (message, throwable) -> errors.add(message)).orElseThrow().getAsInt());
+        failing.set(true);
+        Thread.sleep(150);
+        assertEquals(1, chart.getData(Runnable::run, (message, throwable) -> errors.add(message)).orElseThrow().getAsInt(), "expired data is served");
+        assertEquals(1, chart.getData(Runnable::run, (message, throwable) -> errors.add(message)).orElseThrow().getAsInt(), "expired data is served");
+        assertEquals(2, errors.size(), "failures are reported");
+
+        failing.set(false);
+        assertEquals(1, chart.getData(Runnable::run, (message, throwable) -> errors.add(message)).orElseThrow().getAsInt(), "refresh is retried");
+        assertEquals(2, chart.getData(Runnable::run, (message, throwable) -> errors.add(message)).orElseThrow().getAsInt());
+    }
+}
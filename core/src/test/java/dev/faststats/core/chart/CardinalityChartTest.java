@@ -0,0 +1,34 @@
+package dev.faststats.core.chart;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CardinalityChartTest {
+    @Test
+    public void testEstimate() throws Exception {
+        var chart = Chart.cardinality("unique_players", true);
+        for (var repeat = 0; repeat < 3; repeat++) {
+            for (var i = 0; i < 100_000; i++) chart.record(new UUID(42, i));
+        }
+
+        var snapshot = chart.compute().orElseThrow();
+        var error = Math.abs(snapshot.estimate() - 100_000) / 100_000d;
+        assertTrue(error < 0.05, "estimate " + snapshot.estimate());
+        assertEquals(CardinalityChart.REGISTERS, snapshot.registers().length);
+        assertEquals(Optional.empty(), chart.compute());
+    }
+
+    @Test
+    public void testSmallRange() throws Exception {
+        var chart = Chart.cardinality("unique_worlds", false);
+        for (var world : new String[]{"world", "world_nether", "world_the_end", "world"}) chart.record(world);
+        assertEquals(3, chart.compute().orElseThrow().estimate());
+        chart.record(7);
+        assertEquals("{\"estimate\":1}", chart.getData().orElseThrow().toString());
+    }
+}
@@ -0,0 +1,41 @@
+package dev.faststats.core.chart;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CategoricalChartTest {
+    @Test
+    public void testHeavyHitters() throws Exception {
+        var chart = Chart.categorical("commands", 2);
+        for (var i = 0; i < 10_000; i++) {
+            if (i % 3 == 0) chart.record("spawn");
+            if (i % 5 == 0) chart.record("home");
+            chart.record("random_" + i);
+        }
+
+        var snapshot = chart.compute().orElseThrow();
+        assertEquals(List.of("spawn", "home"), List.copyOf(snapshot.top().keySet()));
+        var total = 10_000 + 3334 + 2000;
+        assertEquals(total, snapshot.top().values().stream().mapToLong(Long::longValue).sum() + snapshot.other());
+        assertEquals(Optional.empty(), chart.compute());
+    }
+
+    @Test
+    public void testExactCountsWithinCapacity() throws Exception {
+        var chart = Chart.categorical("brands", 3);
+        for (var window = 0; window < 2; window++) {
+            for (var i = 1; i <= 10; i++) chart.record("brand_" + (char) ('a' + i), i);
+            for (var i = 10; i >= 1; i--) chart.record("brand_" + (char) ('a' + i), i);
+
+            var snapshot = chart.compute().orElseThrow();
+            assertEquals(Map.of("brand_k", 20L, "brand_j", 18L, "brand_i", 16L), snapshot.top());
+            assertEquals(List.of("brand_k", "brand_j", "brand_i"), List.copyOf(snapshot.top().keySet()));
+            assertEquals(110 - 54, snapshot.other());
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package dev.faststats.core.chart;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CounterChartTest {
+    @Test
+    public void testSumAndReset() throws Exception {
+        var counter = Chart.counter("commands_run");
+        try (var executor = Executors.newFixedThreadPool(4)) {
+            for (var i = 0; i < 4; i++) {
+                executor.submit(() -> {
+                    for (var j = 0; j < 10_000; j++) counter.increment();
+                });
+            }
+        }
+        counter.add(5);
+
+        assertEquals(Optional.of(40_005L), counter.compute());
+        assertEquals(Optional.of(0L), counter.compute());
+    }
+}
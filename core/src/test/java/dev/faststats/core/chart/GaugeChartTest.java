@@ -0,0 +1,31 @@
+package dev.faststats.core.chart;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class GaugeChartTest {
+    @Test
+    public void testWindow() throws Exception {
+        var players = new AtomicInteger();
+        var gauge = Chart.gauge("player_count", players::get, Duration.ofSeconds(10));
+        for (var value : new int[]{4, 10, 1, 5}) {
+            players.set(value);
+            gauge.sample();
+        }
+
+        assertEquals(new GaugeChart.Window(4, 1, 10, 5, 5), gauge.compute().orElseThrow());
+
+        players.set(7);
+        assertEquals(new GaugeChart.Window(1, 7, 7, 7, 7), gauge.compute().orElseThrow());
+    }
+
+    @Test
+    public void testInvalidInterval() {
+        assertThrows(IllegalArgumentException.class, () -> Chart.gauge("player_count", () -> 0, Duration.ZERO));
+    }
+}
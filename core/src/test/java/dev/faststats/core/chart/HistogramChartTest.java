@@ -0,0 +1,39 @@
+package dev.faststats.core.chart;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HistogramChartTest {
+    @Test
+    public void testBuckets() {
+        var random = new Random(42);
+        for (var i = 0; i < 100_000; i++) {
+            var value = (random.nextLong() >>> 1) >>> random.nextInt(63);
+            var index = SimpleHistogramChart.index(value);
+            var lowest = SimpleHistogramChart.lowestValue(index);
+            var highest = SimpleHistogramChart.highestValue(index);
+            assertTrue(lowest <= value && value <= highest, value + " in [" + lowest + ", " + highest + "]");
+            assertTrue(highest - lowest <= Math.max(0, value / HistogramChart.SUB_BUCKETS), "bucket of " + value);
+        }
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        var histogram = Chart.histogram("tick_time");
+        for (var value : new long[]{3, 7, 7, 7, 37}) histogram.record(value);
+
+        var data = histogram.getData().orElseThrow().getAsJsonObject();
+        assertEquals(5, data.get("count").getAsLong());
+        assertEquals(61, data.get("sum").getAsLong());
+        assertEquals(37, data.get("max").getAsLong());
+        assertEquals(7, data.get("p50").getAsLong());
+        assertEquals(37, data.get("p99").getAsLong());
+        assertEquals("[3,1,7,3,36,1]", data.get("buckets").toString());
+        assertEquals(Optional.empty(), histogram.compute());
+    }
+}
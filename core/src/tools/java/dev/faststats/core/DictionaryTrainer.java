@@ -0,0 +1,77 @@
+package dev.faststats.core;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictTrainer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Trains a zstd dictionary from a directory of uncompressed sample payloads.
+ * <p>
+ * Usage: {@code DictionaryTrainer <samples> <output> [dictionary size]}
+ * <p>
+ * Every regular file in the samples directory is used as one sample.
+ * After training, the compression ratio with and without the dictionary is reported.
+ * <p>
+ * The trainer lives in the {@code tools} source set, so it is not part of the published artifact.
+ *
+ * @see Metrics.Factory#dictionary(byte[])
+ */
+final class DictionaryTrainer {
+    private static final int DEFAULT_DICTIONARY_SIZE = 16 * 1024;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: DictionaryTrainer <samples> <output> [dictionary size]");
+            System.exit(1);
+            return;
+        }
+
+        var dictionarySize = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_DICTIONARY_SIZE;
+        var samples = readSamples(Path.of(args[0]));
+        if (samples.isEmpty()) {
+            System.err.println("No samples found in " + args[0]);
+            System.exit(1);
+            return;
+        }
+
+        var totalSize = samples.stream().mapToInt(sample -> sample.length).sum();
+        var trainer = new ZstdDictTrainer(totalSize, dictionarySize);
+        samples.forEach(trainer::addSample);
+        var dictionary = trainer.trainSamples();
+
+        var output = Path.of(args[1]);
+        if (output.getParent() != null) Files.createDirectories(output.getParent());
+        Files.write(output, dictionary);
+
+        long plain = 0, trained = 0;
+        try (var compress = new ZstdDictCompress(dictionary, PayloadCompressor.COMPRESSION_LEVEL)) {
+            for (var sample : samples) {
+                plain += Zstd.compress(sample, PayloadCompressor.COMPRESSION_LEVEL).length;
+                trained += Zstd.compress(sample, compress).length;
+            }
+        }
+
+        System.out.printf("Trained dictionary %s (%d bytes) from %d samples (%d bytes)%n",
+                Long.toUnsignedString(Zstd.getDictIdFromDict(dictionary)), dictionary.length, samples.size(), totalSize);
+        System.out.printf("Without dictionary: %d bytes (ratio %.2f)%n", plain, (double) totalSize / plain);
+        System.out.printf("With dictionary:    %d bytes (ratio %.2f)%n", trained, (double) totalSize / trained);
+        System.out.printf("Size reduction:     %.1f%%%n", 100d * (plain - trained) / plain);
+    }
+
+    private static List<byte[]> readSamples(Path directory) throws IOException {
+        var samples = new ArrayList<byte[]>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (var file : files.filter(Files::isRegularFile).sorted().toList()) {
+                samples.add(Files.readAllBytes(file));
+            }
+        }
+        return samples;
+    }
+}
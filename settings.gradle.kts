@@ -3,6 +3,7 @@ plugins {
 }
 
 rootProject.name = "dev-kits"
+include("benchmarks")
 include("bukkit")
 include("core")
 include("velocity")
\ No newline at end of file
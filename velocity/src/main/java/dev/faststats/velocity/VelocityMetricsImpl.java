@@ -39,22 +39,26 @@ final class VelocityMetricsImpl extends SimpleMetrics implements VelocityMetrics
 
     @Async.Schedule
     private void startSubmitting() {
-        startSubmitting(0, 30, TimeUnit.MINUTES);
+        startSubmitting(30, TimeUnit.MINUTES);
     }
 
     @Override
-    protected void appendDefaultData(JsonObject charts) {
-        var pluginVersion = plugin.getDescription().getVersion().orElse("unknown");
+    protected void appendServerData(JsonObject charts) {
         var size = server.getPlayerCount();
 
         charts.addProperty("online_mode", server.getConfiguration().isOnlineMode());
-        charts.addProperty("plugin_version", pluginVersion);
         charts.addProperty("server_type", server.getVersion().getName());
         charts.addProperty("proxy_version", server.getVersion().getVersion());
         charts.addProperty("proxy_vendor", server.getVersion().getVendor());
         if (size != 0) charts.addProperty("player_count", size);
     }
 
+    @Override
+    protected void appendDefaultData(JsonObject charts) {
+        var pluginVersion = plugin.getDescription().getVersion().orElse("unknown");
+        charts.addProperty("plugin_version", pluginVersion);
+    }
+
     @Override
     protected void error(String message, @Nullable Throwable throwable) {
         if (!isDebug()) return;